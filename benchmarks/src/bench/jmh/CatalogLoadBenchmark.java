@@ -0,0 +1,38 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import src.models.Star;
+import src.models.StarRepository;
+import src.storage.CatalogLoader;
+
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: loading the catalog file at startup
+/*
+    readCatalogFile: reading and decoding all records (Star.loadCatalogFile)
+    load:            the same + columns, sorted indexes and the first snapshot (StarRepository.load)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogLoadBenchmark {
+
+    @Benchmark
+    public CatalogLoader.Result readCatalogFile(CatalogState catalog) {
+        return Star.loadCatalogFile();
+    }
+
+    @Benchmark
+    public int load(CatalogState catalog) {
+        StarRepository.load();
+        return StarRepository.size();
+    }
+}
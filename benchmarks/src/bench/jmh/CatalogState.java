@@ -0,0 +1,55 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import src.models.Star;
+import src.models.StarRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Synthetic catalog in a temporary data folder, loaded into StarRepository (one per benchmark fork)
+/*
+    The data folder is set with system property starmanager.data before Star is used for the first time
+    (Star reads it once), so benchmarks never touch src/data. This works because JMH runs every benchmark
+    and every size in its own JVM - benchmarks must not be run with -f 0.
+    Catalogs of 10M stars need a big heap, e.g. -jvmArgsAppend -Xmx16g.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    Path dataFolder;
+
+    @Setup(Level.Trial)
+    public void createCatalog() throws IOException {
+        dataFolder = Files.createTempDirectory("starmanager-bench");
+        System.setProperty("starmanager.data", dataFolder.toString());
+        // removing/renaming stars prints messages for the menu
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        SyntheticCatalog.write(dataFolder.resolve("stars.cat"), SyntheticCatalog.stars(size, 42));
+        StarRepository.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCatalog() throws IOException {
+        Star.closeCatalog();
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
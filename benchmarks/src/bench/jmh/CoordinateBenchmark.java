@@ -0,0 +1,103 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.models.ConstellationRegistry;
+import src.models.Star;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: angular distance with coordinates cached in Star vs converting declination/right ascension on every call
+/*
+    Every operation compares one star with its neighbour in an array of STARS stars (results are per pair):
+    - separation: angular distance in degrees
+    - within:     is the other star within 2° (cone search test)
+    "cached" methods use the unit vector kept in Star, "onTheFly" methods convert Declination/RightAscension
+    objects to radians on every call (what every comparison had to do before the vector was cached).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoordinateBenchmark {
+
+    private static final int STARS = 100_000;
+
+    private Star[] stars;
+    private final double minDot = Math.cos(Math.toRadians(2));
+
+    @Setup(Level.Trial)
+    public void createStars() {
+        Random random = new Random(42);
+        stars = new Star[STARS];
+        for (int i = 0; i < STARS; i++) {
+            stars[i] = SyntheticCatalog.star(SyntheticCatalog.name(i), 0,
+                    ConstellationRegistry.intern(SyntheticCatalog.BENCH_CONSTELLATION), random);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STARS - 1)
+    public double separationCached() {
+        double sum = 0;
+        for (int i = 1; i < stars.length; i++) {
+            sum += stars[i].angularSeparation(stars[i - 1]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STARS - 1)
+    public double separationOnTheFly() {
+        double sum = 0;
+        for (int i = 1; i < stars.length; i++) {
+            sum += separationOnTheFly(stars[i], stars[i - 1]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STARS - 1)
+    public int withinCached() {
+        int within = 0;
+        for (int i = 1; i < stars.length; i++) {
+            Star a = stars[i];
+            Star b = stars[i - 1];
+            within += a.getX() * b.getX() + a.getY() * b.getY() + a.getZ() * b.getZ() >= minDot ? 1 : 0;
+        }
+        return within;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STARS - 1)
+    public int withinOnTheFly() {
+        int within = 0;
+        for (int i = 1; i < stars.length; i++) {
+            within += separationOnTheFly(stars[i], stars[i - 1]) <= 2 ? 1 : 0;
+        }
+        return within;
+    }
+
+    // angular distance computed from Declination/RightAscension objects
+    private static double separationOnTheFly(Star a, Star b) {
+        double ra1 = Math.toRadians(a.getRightAscension2().toDegrees());
+        double dec1 = Math.toRadians(a.getDeclination2().toDegrees(a.getHemisphere()));
+        double ra2 = Math.toRadians(b.getRightAscension2().toDegrees());
+        double dec2 = Math.toRadians(b.getDeclination2().toDegrees(b.getHemisphere()));
+        double dot = Math.sin(dec1) * Math.sin(dec2) + Math.cos(dec1) * Math.cos(dec2) * Math.cos(ra1 - ra2);
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, dot))));
+    }
+}
@@ -0,0 +1,87 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.models.Star;
+import src.query.StarAttribute;
+import src.query.StarQuery;
+import src.storage.OffHeapCatalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: searches of a catalog kept outside the heap (OffHeapCatalog, Main --offheap)
+/*
+    Same ranges as RangeSearchBenchmark, every search scans the whole catalog. Run with -prof gc:
+    only found stars are allocated (summarize allocates nothing per star), and the heap left after
+    loading is the same for every size - the stars are in direct buffers.
+    Catalogs of 10M stars need about 1 GB of direct memory, e.g. -jvmArgsAppend "-Xmx4g -XX:MaxDirectMemorySize=2g".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffHeapSearchBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    private OffHeapCatalog catalog;
+    private String name;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() throws IOException {
+        Path folder = Files.createTempDirectory("starmanager-offheap");
+        Path catalogFile = folder.resolve("stars.cat");
+        try {
+            SyntheticCatalog.write(catalogFile, SyntheticCatalog.stars(size, 42));
+            catalog = OffHeapCatalog.load(catalogFile);
+        } finally {
+            Files.deleteIfExists(catalogFile);
+            Files.deleteIfExists(folder);
+        }
+        name = SyntheticCatalog.name(size / 2);
+        System.gc(); // stars written by the setup aren't counted as heap of the catalog
+    }
+
+    @Benchmark
+    public List<Star> temperature() {
+        return catalog.find(StarQuery.stars().between(StarAttribute.TEMPERATURE, 5000, 6000));
+    }
+
+    @Benchmark
+    public DoubleSummaryStatistics summarizeTemperature() {
+        return catalog.summarize(StarQuery.stars().between(StarAttribute.TEMPERATURE, 5000, 6000), StarAttribute.MASS);
+    }
+
+    @Benchmark
+    public List<Star> cone() {
+        return catalog.coneSearch(83.8, -5.4, 2);
+    }
+
+    @Benchmark
+    public Star byName() {
+        return catalog.findByName(name);
+    }
+
+    @Benchmark
+    public List<Star> constellation() {
+        return catalog.getConstellationMembers("Orion", false);
+    }
+}
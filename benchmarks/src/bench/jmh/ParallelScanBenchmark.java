@@ -0,0 +1,80 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.models.ConstellationRegistry;
+import src.query.ChunkedScan;
+import src.query.ColumnarStarStore;
+import src.query.StarAttribute;
+import src.query.StarQuery;
+import src.utils.Hemisphere;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: sequential vs parallel (fork-join) scan of the column store for growing catalogs
+/*
+    Query: southern stars between 5000 and 9000°C heavier than 1.44 solar masses
+    - select:    rows of matching stars (what StarQuery.list() scans)
+    - summarize: count/sum/min/max of their mass (StarQuery.summarize())
+    The smallest size from which the parallel methods are faster (for every bigger size too) is what
+    ChunkedScan.PARALLEL_THRESHOLD (-Dstarmanager.query.parallelThreshold) should be set to on the machine.
+    Other sizes: -p size=...
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelScanBenchmark {
+
+    @Param({"8192", "32768", "131072", "524288", "2097152"})
+    public int size;
+
+    private final StarQuery query = StarQuery.stars()
+            .inHemisphere(Hemisphere.SOUTHERN)
+            .between(StarAttribute.TEMPERATURE, 5000, 9000)
+            .above(StarAttribute.MASS, 1.44);
+    private final ColumnarStarStore columns = new ColumnarStarStore();
+
+    @Setup(Level.Trial)
+    public void fillColumns() {
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            columns.add(SyntheticCatalog.star(SyntheticCatalog.name(i), 0,
+                    ConstellationRegistry.intern(SyntheticCatalog.BENCH_CONSTELLATION), random));
+        }
+    }
+
+    @Benchmark
+    public int[] selectSequential() {
+        return ChunkedScan.select(columns, query, false);
+    }
+
+    @Benchmark
+    public int[] selectParallel() {
+        return ChunkedScan.select(columns, query, true);
+    }
+
+    @Benchmark
+    public DoubleSummaryStatistics summarizeSequential() {
+        return ChunkedScan.summarize(columns, query, StarAttribute.MASS, false);
+    }
+
+    @Benchmark
+    public DoubleSummaryStatistics summarizeParallel() {
+        return ChunkedScan.summarize(columns, query, StarAttribute.MASS, true);
+    }
+}
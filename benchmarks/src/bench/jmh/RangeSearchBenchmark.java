@@ -0,0 +1,77 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.models.Star;
+import src.models.StarRepository;
+import src.utils.Hemisphere;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: searches of the find* menu options (same methods as the menu and the HTTP server use, without printing)
+/*
+    Ranges are fixed, so every size finds the same fraction of the catalog:
+    temperature 5000-6000 (~2.6%), absolute magnitude 0-1 (~6%), stars at the distance of one star,
+    a hemisphere (~50%), supernovas (mass above 1.44, ~97%), cone of 2° (~0.03%), one constellation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RangeSearchBenchmark {
+
+    private double parsecs;
+
+    @Setup(Level.Trial)
+    public void pickDistance(CatalogState catalog) {
+        Star star = StarRepository.getStars().get(StarRepository.size() / 2);
+        parsecs = Math.round(star.getDistance() * 0.3066013938 * 100.00) / 100.00;
+    }
+
+    @Benchmark
+    public List<Star> distance(CatalogState catalog) {
+        return Star.findStarsAtDistance(parsecs);
+    }
+
+    @Benchmark
+    public List<Star> temperature(CatalogState catalog) {
+        return Star.findStarsByTemperature(5000, 6000);
+    }
+
+    @Benchmark
+    public List<Star> magnitude(CatalogState catalog) {
+        return Star.findStarsByMagnitude(0, 1);
+    }
+
+    @Benchmark
+    public List<Star> hemisphere(CatalogState catalog) {
+        return Star.findStarsInHemisphere(Hemisphere.SOUTHERN);
+    }
+
+    @Benchmark
+    public List<Star> supernovas(CatalogState catalog) {
+        return Star.findSupernovaStars();
+    }
+
+    @Benchmark
+    public List<Star> cone(CatalogState catalog) {
+        return StarRepository.coneSearch(83.8, -5.4, 2);
+    }
+
+    @Benchmark
+    public List<Star> constellation(CatalogState catalog) {
+        return Star.findStarsInConstellation("Orion");
+    }
+}
@@ -0,0 +1,174 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import src.io.ExportFormat;
+import src.io.StarExporter;
+import src.models.Star;
+import src.storage.PackedCatalog;
+import src.storage.StarCodec;
+import src.storage.WriteAheadLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: encoding/decoding one star in every format it's stored or sent in, with the encoded size
+/*
+    codecWrite/codecRead:                   StarCodec (star of a log entry)
+    javaSerialization/javaDeserialization:  .obj file of older versions (ObjectOutputStream/ObjectInputStream)
+    walEntry:                               whole entry of the write-ahead log (header, CRC32, StarCodec)
+    json:                                   one line of "export json" / HTTP server responses
+    Results are stars per microsecond. Encoding benchmarks also report "bytes" = encoded size of one star
+    (average over the sample). A record of the catalog file always has PackedCatalog.RECORD_SIZE bytes
+    (reported by catalogRecord).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private static final int SAMPLE = 1024;
+
+    private List<Star> stars;
+    private int next;
+    private final ByteBuffer walBuffer = ByteBuffer.allocate(WriteAheadLog.maxEntrySize());
+    private final ByteBuffer codecBuffer = ByteBuffer.allocate(StarCodec.MAX_SIZE);
+    // the same stars encoded, for decoding benchmarks
+    private ByteBuffer[] encoded;
+    private byte[][] serialized;
+
+    // average encoded size of a star, reported next to the result
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EncodedSize {
+        private long bytes;
+        private long stars;
+        private int iterations;
+
+        @Setup(Level.Trial)
+        public void countIterations(BenchmarkParams params) {
+            iterations = params.getMeasurement().getCount();
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            stars = 0;
+        }
+
+        void add(int encodedBytes) {
+            bytes += encodedBytes;
+            stars++;
+        }
+
+        // JMH adds up event counters of all measurement iterations, so every iteration reports its share
+        public double bytes() {
+            return stars == 0 ? 0 : (double) bytes / stars / iterations;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createStars() throws IOException {
+        stars = SyntheticCatalog.stars(SAMPLE, 42);
+        encoded = new ByteBuffer[SAMPLE];
+        serialized = new byte[SAMPLE][];
+        for (int i = 0; i < SAMPLE; i++) {
+            encoded[i] = ByteBuffer.allocate(StarCodec.MAX_SIZE);
+            StarCodec.write(stars.get(i), encoded[i]);
+            encoded[i].flip();
+            serialized[i] = javaSerialize(stars.get(i));
+        }
+    }
+
+    private Star nextStar() {
+        next = (next + 1) % SAMPLE;
+        return stars.get(next);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % SAMPLE;
+        return next;
+    }
+
+    private static byte[] javaSerialize(Star star) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(star);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public ByteBuffer codecWrite(EncodedSize size) {
+        codecBuffer.clear();
+        StarCodec.write(nextStar(), codecBuffer);
+        size.add(codecBuffer.position());
+        return codecBuffer;
+    }
+
+    @Benchmark
+    public Star codecRead() {
+        ByteBuffer buffer = encoded[nextIndex()];
+        buffer.rewind();
+        return StarCodec.read(buffer);
+    }
+
+    @Benchmark
+    public Star javaDeserialization() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized[nextIndex()]))) {
+            return (Star) in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] javaSerialization(EncodedSize size) throws IOException {
+        byte[] bytes = javaSerialize(nextStar());
+        size.add(bytes.length);
+        return bytes;
+    }
+
+    @Benchmark
+    public ByteBuffer walEntry(EncodedSize size) {
+        walBuffer.clear();
+        WriteAheadLog.encode(WriteAheadLog.Entry.put(nextStar()), walBuffer);
+        size.add(walBuffer.position());
+        return walBuffer;
+    }
+
+    @Benchmark
+    public StringWriter json(EncodedSize size) throws IOException {
+        StringWriter text = new StringWriter(512);
+        StarExporter exporter = new StarExporter(text, ExportFormat.JSON);
+        exporter.write(nextStar());
+        exporter.flush();
+        size.add(text.getBuffer().length());
+        return text;
+    }
+
+    @Benchmark
+    public int catalogRecord(EncodedSize size) {
+        size.add(PackedCatalog.RECORD_SIZE);
+        return PackedCatalog.RECORD_SIZE;
+    }
+}
@@ -0,0 +1,127 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import src.models.StarRepository;
+import src.server.StarServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Load test of the HTTP server: many clients sending read requests at once
+/*
+    The server is started in the benchmark JVM (on a free port) with the synthetic catalog of CatalogState.
+    Every JMH thread is a client sending requests one after another, so threads = requests in flight
+    (64 by default, other numbers with -t). Sample time mode gives the latency percentiles, -bm thrpt the requests per second.
+    - mix:     all searches (temperature/magnitude/distance ranges, cone searches,
+               first 50 stars of a hemisphere/supernovas, lookups by name)
+    - lookups: only lookups by name
+    A response other than 200 or 404 fails the benchmark.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(64)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerLoadBenchmark {
+
+    private StarServer server;
+    private HttpClient client;
+    private String url;
+    private int size;
+
+    // random numbers of one client
+    @State(Scope.Thread)
+    public static class Client {
+        final Random random = new Random(Thread.currentThread().threadId());
+    }
+
+    @Setup(Level.Trial)
+    public void startServer(CatalogState catalog) throws IOException {
+        server = StarServer.start(0);
+        url = "http://localhost:" + server.getPort();
+        size = StarRepository.size();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public int mix(Client caller) throws Exception {
+        return get(randomPath(caller.random));
+    }
+
+    @Benchmark
+    public int lookups(Client caller) throws Exception {
+        return get(lookupPath(caller.random));
+    }
+
+    private int get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path)).GET().build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200 && response.statusCode() != 404) {
+            throw new IllegalStateException("Request " + path + " failed with status " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    private String randomPath(Random random) {
+        switch (random.nextInt(8)) {
+            case 0 -> {
+                int min = 2000 + random.nextInt(20000);
+                return "/stars/temperature?min=" + min + "&max=" + (min + random.nextInt(2000));
+            }
+            case 1 -> {
+                int min = -10 + random.nextInt(20);
+                return "/stars/magnitude?min=" + min + "&max=" + (min + 1);
+            }
+            case 2 -> {
+                return "/stars/distance?parsecs=" + (1 + random.nextInt(100000)) / 100.0;
+            }
+            case 3 -> {
+                return "/stars/cone?ra=" + random.nextInt(360) + "&dec=" + (random.nextInt(180) - 90) + "&radius=" + (1 + random.nextInt(10));
+            }
+            case 4 -> {
+                return "/stars/hemisphere?hemisphere=" + (random.nextBoolean() ? "N" : "S") + "&limit=50";
+            }
+            case 5 -> {
+                return "/stars/supernovas?limit=50";
+            }
+            default -> {
+                return lookupPath(random);
+            }
+        }
+    }
+
+    // lookup of a star of the synthetic catalog by name
+    private String lookupPath(Random random) {
+        return "/star?name=" + SyntheticCatalog.name(random.nextInt(size));
+    }
+}
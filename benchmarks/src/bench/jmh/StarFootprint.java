@@ -0,0 +1,66 @@
+package src.bench.jmh;
+
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import src.models.Star;
+import src.storage.OffHeapCatalog;
+import src.storage.PackedCatalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Heap used by stars in memory, measured with JOL (not a JMH benchmark)
+/*
+    Run: java -cp benchmarks/target/benchmarks.jar src.bench.jmh.StarFootprint [stars] [--offheap]
+    Stars of a synthetic catalog are written to a catalog file and read back (same decoding as at startup),
+    then everything reachable from them is measured. Objects shared by many stars (constellations,
+    enum constants) would be counted once, so the bytes per star are the difference between all stars
+    and half of them, divided by the number of stars in the other half.
+    Prints the field layout of Star, the objects of the catalog by class and the bytes per star.
+    With --offheap the stars are read into an OffHeapCatalog instead: prints the heap reachable from it
+    (the same for every number of stars, only the buffer objects) and the native memory of its buffers.
+ */
+public final class StarFootprint {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        boolean offHeap = args.length > 1 && args[1].equals("--offheap");
+
+        Path folder = Files.createTempDirectory("starmanager-footprint");
+        Path catalogFile = folder.resolve("stars.cat");
+        List<Star> stars;
+        try {
+            SyntheticCatalog.write(catalogFile, SyntheticCatalog.stars(count, 42));
+            if (offHeap) {
+                OffHeapCatalog catalog = OffHeapCatalog.load(catalogFile);
+                System.out.println(GraphLayout.parseInstance(catalog).toFootprint());
+                System.out.printf("%d stars: %d bytes of heap, %d bytes off heap (%d per star)%n", catalog.size(),
+                        GraphLayout.parseInstance(catalog).totalSize(), catalog.offHeapBytes(), OffHeapCatalog.ROW_SIZE);
+                return;
+            }
+            try (PackedCatalog catalog = PackedCatalog.open(catalogFile)) {
+                stars = catalog.readAll();
+            }
+        } finally {
+            Files.deleteIfExists(catalogFile);
+            Files.deleteIfExists(folder);
+        }
+
+        System.out.println(ClassLayout.parseClass(Star.class).toPrintable());
+        GraphLayout all = GraphLayout.parseInstance((Object) stars.toArray());
+        System.out.println(all.toFootprint());
+
+        int half = count / 2;
+        long allBytes = starBytes(stars.subList(0, count));
+        long halfBytes = starBytes(stars.subList(0, half));
+        System.out.printf("%d stars: %d bytes, %.1f bytes per star%n", count, allBytes,
+                (allBytes - halfBytes) / (double) (count - half));
+    }
+
+    // bytes of everything reachable from the stars (the stars are the roots, there's no array holding them)
+    private static long starBytes(List<Star> stars) {
+        return GraphLayout.parseInstance(stars.toArray()).totalSize();
+    }
+}
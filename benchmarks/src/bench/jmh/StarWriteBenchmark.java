@@ -0,0 +1,83 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import src.models.Constellation;
+import src.models.Declination;
+import src.models.RightAscension;
+import src.models.Star;
+import src.models.StarRepository;
+import src.utils.Hemisphere;
+
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: changes of the catalog
+/*
+    insert:            creating one star (greek letter, catalog snapshot, indexes, saving to the catalog file);
+                       it's removed again after every call, so the constellation never fills up
+    removeAndRenumber: removing alpha of a constellation with all 24 letters taken - the other 23 stars
+                       are renamed and saved again (removeStar + updateCatalog);
+                       a new star is added before every call, so there are always 24 stars to renumber
+    Saving returns when its batch of the write-ahead log is committed (one fsync, see CatalogStore),
+    a removal with its renamed stars is one batch. -jvmArgsAppend -Dstarmanager.wal.async=true measures
+    asynchronous commit (saving only adds an entry to the open batch).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StarWriteBenchmark {
+
+    // names of stars added by benchmarks: ZZA0000 - ZZZ9999, reused after 260 000 stars
+    private static final int NAMES = 26 * 10_000;
+    private static int nextName;
+
+    static Star newStar() {
+        int index = nextName++ % NAMES;
+        String name = "ZZ" + (char) ('A' + index / 10_000) + String.format("%04d", index % 10_000);
+        return Star.create(name, Hemisphere.NORTHERN, new Declination(10, 20, 30), new RightAscension(5, 35, 17),
+                new Constellation(SyntheticCatalog.BENCH_CONSTELLATION), 4.5, 120, 5800, 1.2);
+    }
+
+    @State(Scope.Benchmark)
+    public static class InsertedStar {
+        Star star;
+
+        @TearDown(Level.Invocation)
+        public void remove() {
+            Star.removeStar(star.getCatalogName());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FullConstellation {
+        @Setup(Level.Invocation)
+        public void fill(CatalogState catalog) {
+            while (StarRepository.getConstellationMembers(SyntheticCatalog.BENCH_CONSTELLATION).size() < 24) {
+                newStar();
+            }
+        }
+    }
+
+    @Benchmark
+    public Star insert(CatalogState catalog, InsertedStar inserted) {
+        inserted.star = newStar();
+        return inserted.star;
+    }
+
+    @Benchmark
+    public void removeAndRenumber(CatalogState catalog, FullConstellation constellation) {
+        Star.removeStar("Alpha " + SyntheticCatalog.BENCH_CONSTELLATION);
+    }
+}
@@ -0,0 +1,94 @@
+package src.bench.jmh;
+
+import src.models.Constellation;
+import src.models.ConstellationRegistry;
+import src.models.Declination;
+import src.models.RightAscension;
+import src.models.Star;
+import src.storage.PackedCatalog;
+import src.utils.GreekAlphabet;
+import src.utils.Hemisphere;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Synthetic catalogs for benchmarks: stars spread evenly over the 88 IAU constellations
+/*
+    A real catalog holds at most 24 stars in a constellation (one for every greek letter), so 2112 stars
+    in the 88 constellations. Bigger synthetic catalogs repeat greek letters (star i gets letter (i / 88) % 24),
+    which doesn't matter for loading and searching, but such a constellation can't be renumbered -
+    benchmarks that add and remove stars use their own constellation (BENCH_CONSTELLATION) with real letters.
+    Values are random (same seed = same catalog) within the limits checked by Star.validate.
+ */
+public final class SyntheticCatalog {
+
+    public static final List<String> IAU_CONSTELLATIONS = List.of(
+            "Andromeda", "Antlia", "Apus", "Aquarius", "Aquila", "Ara", "Aries", "Auriga",
+            "Bootes", "Caelum", "Camelopardalis", "Cancer", "Canes Venatici", "Canis Major", "Canis Minor", "Capricornus",
+            "Carina", "Cassiopeia", "Centaurus", "Cepheus", "Cetus", "Chamaeleon", "Circinus", "Columba",
+            "Coma Berenices", "Corona Australis", "Corona Borealis", "Corvus", "Crater", "Crux", "Cygnus", "Delphinus",
+            "Dorado", "Draco", "Equuleus", "Eridanus", "Fornax", "Gemini", "Grus", "Hercules",
+            "Horologium", "Hydra", "Hydrus", "Indus", "Lacerta", "Leo", "Leo Minor", "Lepus",
+            "Libra", "Lupus", "Lynx", "Lyra", "Mensa", "Microscopium", "Monoceros", "Musca",
+            "Norma", "Octans", "Ophiuchus", "Orion", "Pavo", "Pegasus", "Perseus", "Phoenix",
+            "Pictor", "Pisces", "Piscis Austrinus", "Puppis", "Pyxis", "Reticulum", "Sagitta", "Sagittarius",
+            "Scorpius", "Sculptor", "Scutum", "Serpens", "Sextans", "Taurus", "Telescopium", "Triangulum",
+            "Triangulum Australe", "Tucana", "Ursa Major", "Ursa Minor", "Vela", "Virgo", "Volans", "Vulpecula");
+
+    // constellation used only by benchmarks that add/remove stars (not one of the IAU constellations)
+    public static final String BENCH_CONSTELLATION = "Benchmark";
+
+    private SyntheticCatalog() {
+    }
+
+    // stars of a synthetic catalog, star i is named name(i)
+    public static List<Star> stars(int count, long seed) {
+        Random random = new Random(seed);
+        List<Constellation> constellations = new ArrayList<>();
+        for (String name : IAU_CONSTELLATIONS) {
+            constellations.add(ConstellationRegistry.intern(name));
+        }
+        List<Star> stars = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Constellation constellation = constellations.get(i % constellations.size());
+            int greekOrdinal = (i / constellations.size()) % GreekAlphabet.values().length;
+            stars.add(star(name(i), greekOrdinal, constellation, random));
+        }
+        return stars;
+    }
+
+    // unique star name for every index below 26^3 * 10^4 (AAA0000, AAA0001, ..., AAB0000, ...)
+    public static String name(int index) {
+        int letters = index / 10_000;
+        return "" + (char) ('A' + letters / (26 * 26) % 26) + (char) ('A' + letters / 26 % 26) + (char) ('A' + letters % 26)
+                + String.format("%04d", index % 10_000);
+    }
+
+    // star with random values, as read from the catalog file (not added to the catalog)
+    public static Star star(String name, int greekOrdinal, Constellation constellation, Random random) {
+        boolean southern = random.nextBoolean();
+        Hemisphere hemisphere = southern ? Hemisphere.SOUTHERN : Hemisphere.NORTHERN;
+        Declination declination = new Declination((southern ? -1 : 1) * random.nextInt(90), random.nextInt(60), random.nextDouble() * 59);
+        RightAscension rightAscension = new RightAscension(random.nextInt(24), random.nextInt(60), random.nextDouble() * 59);
+        double apparentMagnitude = -1.5 + random.nextDouble() * 16.5;
+        double distance = 4 + random.nextDouble() * 10_000; // light years
+        double absoluteMagnitude = apparentMagnitude - 5 * Math.log10(distance / 3.26) + 5;
+        double temperature = 2000 + random.nextDouble() * 38_000;
+        double mass = 0.1 + random.nextDouble() * 49.9;
+        return Star.restore(name, greekOrdinal, hemisphere, declination, rightAscension, constellation,
+                apparentMagnitude, absoluteMagnitude, distance, temperature, mass);
+    }
+
+    // writes stars to a new catalog file
+    public static void write(Path catalogFile, List<Star> stars) throws IOException {
+        try (PackedCatalog catalog = PackedCatalog.open(catalogFile)) {
+            for (Star star : stars) {
+                catalog.put(star);
+            }
+            catalog.sync();
+        }
+    }
+}
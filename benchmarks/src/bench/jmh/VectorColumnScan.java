@@ -0,0 +1,69 @@
+package src.bench.jmh;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import src.query.ColumnarStarStore;
+import src.query.StarAttribute;
+
+// Range scans of the column store written with the Vector API (jdk.incubator.vector)
+/*
+    Same results as ColumnarStarStore.selectRange, but every step compares a whole vector of values
+    (SPECIES_PREFERRED: 4 doubles with AVX2, 8 with AVX-512) and writes the rows of the set lanes of the mask.
+    Rows left over after the last full vector are compared one by one.
+
+    Only in the benchmarks module: the Vector API is still an incubator module, so it needs
+    --add-modules jdk.incubator.vector when compiling and running (benchmarks/pom.xml and VectorScanBenchmark
+    pass it), and the program itself doesn't depend on it. VectorScanBenchmark compares it with the scalar loops.
+ */
+public final class VectorColumnScan {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorColumnScan() {
+    }
+
+    // writes rows with min <= value <= max to selection, returns number of selected rows
+    public static int selectRange(ColumnarStarStore columns, StarAttribute attribute, double min, double max, int[] selection) {
+        double[] values = columns.column(attribute);
+        int size = columns.size();
+        int bound = SPECIES.loopBound(size);
+        int count = 0;
+        int row = 0;
+        for (; row < bound; row += SPECIES.length()) {
+            DoubleVector vector = DoubleVector.fromArray(SPECIES, values, row);
+            VectorMask<Double> matches = vector.compare(VectorOperators.GE, min).and(vector.compare(VectorOperators.LE, max));
+            // rows are written without branching on the mask, like in the scalar loop
+            long lanes = matches.toLong();
+            for (int lane = 0; lane < SPECIES.length(); lane++) {
+                selection[count] = row + lane;
+                count += (int) (lanes >>> lane) & 1;
+            }
+        }
+        for (; row < size; row++) {
+            double value = values[row];
+            selection[count] = row;
+            count += (value >= min & value <= max) ? 1 : 0;
+        }
+        return count;
+    }
+
+    // number of rows with min <= value <= max (without writing them anywhere)
+    public static int countRange(ColumnarStarStore columns, StarAttribute attribute, double min, double max) {
+        double[] values = columns.column(attribute);
+        int size = columns.size();
+        int bound = SPECIES.loopBound(size);
+        int count = 0;
+        int row = 0;
+        for (; row < bound; row += SPECIES.length()) {
+            DoubleVector vector = DoubleVector.fromArray(SPECIES, values, row);
+            count += vector.compare(VectorOperators.GE, min).and(vector.compare(VectorOperators.LE, max)).trueCount();
+        }
+        for (; row < size; row++) {
+            double value = values[row];
+            count += (value >= min & value <= max) ? 1 : 0;
+        }
+        return count;
+    }
+}
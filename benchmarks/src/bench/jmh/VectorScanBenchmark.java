@@ -0,0 +1,85 @@
+package src.bench.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.models.ConstellationRegistry;
+import src.query.ColumnarStarStore;
+import src.query.StarAttribute;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: scalar (branch-free) loops of ColumnarStarStore vs the same scans with the Vector API (VectorColumnScan)
+/*
+    Ranges of temperature: narrow 5000-6000 (~2.6% of stars), wide 3000-30000 (most of them)
+    - select: rows of matching stars written to a selection vector (ColumnarStarStore.selectRange)
+    - count:  only the number of matching stars
+    The forked JVM gets --add-modules jdk.incubator.vector (see @Fork), other sizes: -p size=...
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class VectorScanBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int size;
+
+    @Param({"narrow", "wide"})
+    public String range;
+
+    private final ColumnarStarStore columns = new ColumnarStarStore();
+    private int[] selection;
+    private double min;
+    private double max;
+
+    @Setup(Level.Trial)
+    public void fillColumns() {
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            columns.add(SyntheticCatalog.star(SyntheticCatalog.name(i), 0,
+                    ConstellationRegistry.intern(SyntheticCatalog.BENCH_CONSTELLATION), random));
+        }
+        selection = columns.newSelection();
+        min = range.equals("narrow") ? 5000 : 3000;
+        max = range.equals("narrow") ? 6000 : 30000;
+    }
+
+    @Benchmark
+    public int selectScalar() {
+        return columns.selectRange(StarAttribute.TEMPERATURE, min, max, selection);
+    }
+
+    @Benchmark
+    public int selectVector() {
+        return VectorColumnScan.selectRange(columns, StarAttribute.TEMPERATURE, min, max, selection);
+    }
+
+    @Benchmark
+    public int countScalar() {
+        double[] values = columns.column(StarAttribute.TEMPERATURE);
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            double value = values[row];
+            count += (value >= min & value <= max) ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int countVector() {
+        return VectorColumnScan.countRange(columns, StarAttribute.TEMPERATURE, min, max);
+    }
+}
@@ -1,7 +1,12 @@
 package src;
 
+import src.cli.CommandRunner;
+import src.metrics.Metrics;
 import src.models.*;
+import src.server.StarServer;
 import src.utils.Hemisphere;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -11,7 +16,39 @@ import static src.models.Star.*;
 public class Main {
 
     public static void main(String[] args) throws Exception {
-        initializeStarCountMap();
+        // --mapped: searches read stars straight from the memory-mapped catalog file
+        // --offheap: stars are kept in memory outside the Java heap (for catalogs bigger than the heap)
+        // (they can be anywhere in the arguments, the rest is the command)
+        List<String> command = new ArrayList<>(Arrays.asList(args));
+        if (command.remove("--offheap")) {
+            command.remove("--mapped");
+            StarRepository.loadOffHeap(); // also counts stars in constellations
+        } else if (command.remove("--mapped")) {
+            StarRepository.loadMapped();
+            initializeStarCountMap();
+        } else {
+            StarRepository.load(); // also counts stars in constellations
+        }
+
+        // add/remove/find/show/list/export/import/script/help: commands without the menu (see src.cli.CommandRunner)
+        // e.g. find --temp 3000..6000, export stars.csv, script commands.txt
+        if (!command.isEmpty() && CommandRunner.isCommand(command.get(0))) {
+            int failed = CommandRunner.run(command);
+            closeCatalog();
+            if (failed > 0) {
+                System.exit(1);
+            }
+            return;
+        }
+        // latencies and counters can be watched with a JMX client (jconsole, VisualVM) while the program runs
+        Metrics.registerMBeans();
+        // serve [port]: HTTP/JSON search server (without the menu), runs until the program is stopped
+        if (!command.isEmpty() && command.get(0).equals("serve")) {
+            int port = command.size() >= 2 ? Integer.parseInt(command.get(1)) : StarServer.DEFAULT_PORT;
+            StarServer server = StarServer.start(port);
+            System.out.println("StarManager server is listening on http://localhost:" + server.getPort() + "/ (Ctrl+C to stop)");
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
 
         while (true) {
@@ -59,17 +96,7 @@ public class Main {
                         }
                         
                     // checking if a star with that name already exist
-                    List<Star> existingStars = Star.loadStarsFromFile();
-                    boolean starExists = false;
-                    for (Star star : existingStars)
-                    {
-                        if (star.getName().equals(name)) 
-                        {
-                            starExists = true;
-                            break;
-                        }
-                    }
-                    if (starExists) 
+                    if (StarRepository.findByName(name) != null) 
                     {
                         throw new IllegalArgumentException("A star with this name already exists! Please choose a different name.");
                     }
@@ -129,7 +156,7 @@ public class Main {
                     System.out.println("Enter constellation:");
                     scanner.nextLine();
                     String constellationName = scanner.nextLine();
-                    Constellation constellation = new Constellation(constellationName);
+                    Constellation constellation = ConstellationRegistry.intern(constellationName);
 
                     // Apparent Magnitude
                     System.out.println("Enter Star's apparent magnitude <-26.74; 15.00>:");
@@ -163,7 +190,7 @@ public class Main {
               
 
                     try {
-                        Star star = new Star(name, hemisphere, declination, rightAscension, constellation, apparentMagnitude, distance, temperature, mass);
+                        Star star = Star.create(name, hemisphere, declination, rightAscension, constellation, apparentMagnitude, distance, temperature, mass);
                         System.out.println("\nSTAR HAS BEEN CREATED :)");
                         System.out.println("\nSTAR INFO:");
                         System.out.println("* Name: " + star.getName());
@@ -253,15 +280,7 @@ public class Main {
                     System.out.println("\nWhich Star would you like to save? (enter Star's name): ");
                     String sName = scanner.nextLine();
 
-                    List<Star> stars = loadStarsFromFile();
-
-                    Star foundStar = null;
-                    for (Star star : stars) {
-                        if (star.getName().equalsIgnoreCase(sName)) {
-                            foundStar = star;
-                            break;
-                        }
-                    }
+                    Star foundStar = StarRepository.findByName(sName);
                     if (foundStar != null) {
                         Star.saveStarToFile(foundStar);
                         System.out.println("\nSelected star has been saved :)");
@@ -274,6 +293,7 @@ public class Main {
                 case 12:
                     System.out.println("\nSee you soon!");
                     System.out.println("\nExiting StarManager...");
+                    Star.closeCatalog();
                     scanner.close();
                     return;
                 default:
@@ -282,4 +302,4 @@ public class Main {
 
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,393 @@
+package src.cli;
+
+import src.io.ExportFormat;
+import src.io.StarExporter;
+import src.io.StarImporter;
+import src.metrics.Metrics;
+import src.models.ConstellationRegistry;
+import src.models.Declination;
+import src.models.RightAscension;
+import src.models.Star;
+import src.models.StarRepository;
+import src.query.StarAttribute;
+import src.query.StarQuery;
+import src.utils.Hemisphere;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Commands run without the menu: "Main <command> ..." or many commands from a script file
+/*
+    add --name ABC1234 --hemisphere N --dec 10:20:30 --ra 5:30:0 --constellation Orion
+        --magnitude 1.5 --distance 120 --temperature 5000 --mass 1.2    (distance in light years)
+    remove <catalog name>                      e.g. remove alpha Orion
+    find [--temp a..b] [--magnitude a..b] [--apparent a..b] [--distance a..b] [--mass a..b]
+         [--parsecs x] [--hemisphere N|S] [--constellation name] [--supernovas]
+         [--limit n] [--format text|csv|json] [--explain]
+         (a..b is inclusive, "..b" and "a.." are open ranges, --distance in light years,
+          --parsecs = stars at x parsecs rounded to 2 places like "Filter stars by distance")
+    show <name>                                one star
+    list [constellation]                       all stars, or stars of one constellation
+    export <file|-> [csv|json|text]
+    import <file.csv>
+    script <file|->                            commands from a file ("-" = standard input),
+                                               one per line, # starts a comment
+    metrics                                    latencies and counters of this run (see Metrics)
+    help
+
+    Arguments with spaces can be quoted in scripts ("alpha Canis Major"). A failed command prints
+    "Error: ..." and the next one still runs; the number of failed commands is returned, so the
+    program can exit with status 1. Every command of a script runs against the catalog loaded once.
+ */
+public final class CommandRunner {
+
+    private static final Set<String> COMMANDS = Set.of("add", "remove", "find", "show", "list", "export", "import",
+            "script", "metrics", "help");
+
+    private CommandRunner() {
+    }
+
+    // true if the first program argument is a command of this class
+    public static boolean isCommand(String name) {
+        return COMMANDS.contains(name);
+    }
+
+    // runs one command, returns the number of failed commands (more than 1 only for scripts)
+    public static int run(List<String> command) {
+        try {
+            return execute(command);
+        }
+        catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+        catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static int execute(List<String> command) throws IOException {
+        if (command.isEmpty()) {
+            throw new IllegalArgumentException("Missing command (try help)");
+        }
+        List<String> arguments = command.subList(1, command.size());
+        switch (command.get(0)) {
+            case "add" -> add(options(arguments));
+            case "remove" -> remove(String.join(" ", required(arguments, "catalog name")));
+            case "find" -> find(options(arguments));
+            case "show" -> show(String.join(" ", required(arguments, "star name")));
+            case "list" -> {
+                if (arguments.isEmpty()) {
+                    Star.viewStars();
+                } else {
+                    Star.displayContellationStars(String.join(" ", arguments));
+                }
+            }
+            case "export" -> export(required(arguments, "file"));
+            case "import" -> System.out.println(new StarImporter(Paths.get(required(arguments, "file").get(0))).run());
+            case "script" -> {
+                return script(required(arguments, "file").get(0));
+            }
+            case "metrics" -> System.out.print(Metrics.report());
+            case "help" -> System.out.println(help());
+            default -> throw new IllegalArgumentException("Unknown command: " + command.get(0) + " (try help)");
+        }
+        return 0;
+    }
+
+    // COMMANDS
+
+    private static void add(Map<String, String> options) {
+        Set<String> unknown = new HashSet<>(options.keySet());
+        unknown.removeAll(List.of("name", "hemisphere", "dec", "ra", "constellation", "magnitude",
+                "distance", "temperature", "mass"));
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown add options: " + unknown);
+        }
+        String name = option(options, "name");
+        if (StarRepository.findByName(name) != null) {
+            throw new IllegalArgumentException("A star with this name already exists: " + name);
+        }
+        Hemisphere hemisphere = Hemisphere.fromString(option(options, "hemisphere"));
+        double[] dec = sexagesimal(option(options, "dec"), "dec");
+        double[] ra = sexagesimal(option(options, "ra"), "ra");
+        Star star = Star.create(name, hemisphere,
+                new Declination((int) dec[0], (int) dec[1], dec[2]),
+                new RightAscension((int) ra[0], (int) ra[1], ra[2]),
+                ConstellationRegistry.intern(option(options, "constellation")),
+                number(options, "magnitude"), number(options, "distance"),
+                number(options, "temperature"), number(options, "mass"));
+        System.out.println("Added " + star.getName() + " as " + star.getCatalogName());
+    }
+
+    private static void remove(String catalogName) {
+        if (StarRepository.findByCatalogName(catalogName) == null) {
+            throw new IllegalArgumentException("Star not found: " + catalogName);
+        }
+        Star.removeStar(catalogName);
+    }
+
+    private static void find(Map<String, String> options) throws IOException {
+        StarQuery query = StarQuery.stars();
+        range(query, options.remove("temp"), StarAttribute.TEMPERATURE);
+        range(query, options.remove("magnitude"), StarAttribute.ABSOLUTE_MAGNITUDE);
+        range(query, options.remove("apparent"), StarAttribute.APPARENT_MAGNITUDE);
+        range(query, options.remove("distance"), StarAttribute.DISTANCE);
+        range(query, options.remove("mass"), StarAttribute.MASS);
+        String parsecs = options.remove("parsecs");
+        String hemisphere = options.remove("hemisphere");
+        if (hemisphere != null) {
+            query.inHemisphere(Hemisphere.fromString(hemisphere));
+        }
+        String constellation = options.remove("constellation");
+        if (constellation != null) {
+            query.inConstellation(constellation);
+        }
+        if (options.remove("supernovas") != null) {
+            query.above(StarAttribute.MASS, Star.CHANDRASEKHAR_LIMIT).orderBy(StarAttribute.MASS);
+        }
+        String limit = options.remove("limit");
+        if (limit != null) {
+            query.limit((int) parse(limit, "limit"));
+        }
+        ExportFormat format = ExportFormat.fromString(options.getOrDefault("format", "text"));
+        options.remove("format");
+        boolean explain = options.remove("explain") != null;
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown find options: " + options.keySet());
+        }
+
+        List<Star> found;
+        if (parsecs != null) {
+            // rounded distance in parsecs, the other criteria are checked on the stars at that distance
+            found = new ArrayList<>();
+            for (Star star : Star.findStarsAtDistance(parse(parsecs, "parsecs"))) {
+                if (query.matches(star) && (query.getLimit() < 0 || found.size() < query.getLimit())) {
+                    found.add(star);
+                }
+            }
+        } else {
+            if (explain) {
+                System.out.println("Plan: " + query.explain());
+            }
+            found = query.list();
+        }
+        StarExporter exporter = format == ExportFormat.TEXT ? StarExporter.toView(System.out) : StarExporter.toConsole(System.out, format);
+        exporter.exportAll(found);
+        exporter.flush();
+        if (format == ExportFormat.TEXT) {
+            System.out.println("Found " + found.size() + " stars");
+        }
+    }
+
+    private static void show(String name) throws IOException {
+        Star star = StarRepository.findByName(name);
+        if (star == null) {
+            star = StarRepository.findByCatalogName(name);
+        }
+        if (star == null) {
+            throw new IllegalArgumentException("Star not found: " + name);
+        }
+        StarExporter exporter = StarExporter.toView(System.out);
+        exporter.write(star);
+        exporter.flush();
+    }
+
+    // exports all stars, format is taken from the file extension when it's not given
+    private static void export(List<String> arguments) throws IOException {
+        String target = arguments.get(0);
+        String formatName = arguments.size() >= 2 ? arguments.get(1) : null;
+        ExportFormat format = formatName != null ? ExportFormat.fromString(formatName)
+                : target.endsWith(".json") || target.endsWith(".jsonl") ? ExportFormat.JSON
+                : target.equals("-") ? ExportFormat.TEXT : ExportFormat.CSV;
+        long start = System.nanoTime();
+        long exported;
+        if (target.equals("-")) {
+            StarExporter exporter = StarExporter.toConsole(System.out, format);
+            exported = exporter.exportAll(StarRepository.records());
+            exporter.flush();
+        } else {
+            try (StarExporter exporter = StarExporter.toFile(Paths.get(target), format)) {
+                exported = exporter.exportAll(StarRepository.records());
+            }
+            catch (IOException e) {
+                throw new IOException("Couldn't export stars to " + target + ": " + e.getMessage(), e);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println("Exported " + exported + " stars to " + target + " in " + seconds + " s");
+        }
+    }
+
+    // runs commands of a script file, returns the number of failed commands
+    private static int script(String file) throws IOException {
+        int failed = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = file.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                List<String> command = tokenize(line);
+                if (command.isEmpty()) {
+                    continue;
+                }
+                if (command.get(0).equals("script")) {
+                    System.err.println("Error: " + file + ":" + lineNumber + ": scripts can't run other scripts");
+                    failed++;
+                    continue;
+                }
+                int commandFailed = run(command);
+                if (commandFailed > 0) {
+                    System.err.println("  (" + file + ":" + lineNumber + ": " + line.trim() + ")");
+                    failed += commandFailed;
+                }
+            }
+        }
+        System.out.println("Script " + file + ": " + lineNumber + " lines, " + failed + " failed commands");
+        return failed;
+    }
+
+    private static String help() {
+        return """
+                Commands:
+                  add --name ABC1234 --hemisphere N --dec 10:20:30 --ra 5:30:0 --constellation Orion \\
+                      --magnitude 1.5 --distance 120 --temperature 5000 --mass 1.2
+                  remove <catalog name>
+                  find [--temp a..b] [--magnitude a..b] [--apparent a..b] [--distance a..b] [--mass a..b]
+                       [--parsecs x] [--hemisphere N|S] [--constellation name] [--supernovas]
+                       [--limit n] [--format text|csv|json] [--explain]
+                  show <name or catalog name>
+                  list [constellation]
+                  export <file|-> [csv|json|text]
+                  import <file.csv>
+                  script <file|->
+                  metrics
+                  help""";
+    }
+
+    // PARSING
+
+    // splits a script line into arguments (whitespace separated, "double quoted" arguments can contain spaces)
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (!quoted && c == '#' && !inToken) {
+                break; // comment
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Missing closing quote: " + line);
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    // --option value pairs (options without a value, e.g. --supernovas, get "")
+    private static Map<String, String> options(List<String> arguments) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < arguments.size(); i++) {
+            String argument = arguments.get(i);
+            if (!argument.startsWith("--") || argument.length() == 2) {
+                throw new IllegalArgumentException("Expected --option, got: " + argument);
+            }
+            String name = argument.substring(2);
+            int equals = name.indexOf('=');
+            if (equals >= 0) {
+                options.put(name.substring(0, equals), name.substring(equals + 1));
+            } else if (i + 1 < arguments.size() && !arguments.get(i + 1).startsWith("--")) {
+                options.put(name, arguments.get(++i));
+            } else {
+                options.put(name, "");
+            }
+        }
+        return options;
+    }
+
+    private static List<String> required(List<String> arguments, String what) {
+        if (arguments.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + what);
+        }
+        return arguments;
+    }
+
+    private static String option(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing option --" + name);
+        }
+        return value;
+    }
+
+    private static double number(Map<String, String> options, String name) {
+        return parse(option(options, name), "--" + name);
+    }
+
+    private static double parse(String value, String name) {
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: " + value);
+        }
+    }
+
+    // "a..b", "a.." or "..b" (inclusive)
+    private static void range(StarQuery query, String value, StarAttribute attribute) {
+        if (value == null) {
+            return;
+        }
+        int dots = value.indexOf("..");
+        if (dots < 0) {
+            throw new IllegalArgumentException("Range of " + attribute + " must look like min..max: " + value);
+        }
+        String min = value.substring(0, dots).trim();
+        String max = value.substring(dots + 2).trim();
+        query.between(attribute,
+                min.isEmpty() ? Double.NEGATIVE_INFINITY : parse(min, attribute.name()),
+                max.isEmpty() ? Double.POSITIVE_INFINITY : parse(max, attribute.name()));
+    }
+
+    // "10:20:30.5" -> {10, 20, 30.5} (degrees/hours, minutes, seconds)
+    private static double[] sexagesimal(String value, String name) {
+        String[] parts = value.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("--" + name + " must look like 10:20:30.5, got: " + value);
+        }
+        try {
+            return new double[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Double.parseDouble(parts[2])};
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must look like 10:20:30.5, got: " + value);
+        }
+    }
+}
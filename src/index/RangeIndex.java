@@ -0,0 +1,160 @@
+package src.index;
+
+import src.models.Star;
+import src.query.StarAttribute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Sorted secondary index of one numeric attribute (e.g. temperature -> stars)
+/*
+    Keys are kept sorted in a primitive double[] with the stars in a parallel array,
+    so a range search is two binary searches + copying the k matching stars: O(log n + k).
+    Stars with the same key are ordered by name, so an index has the same order however it was made.
+
+    An index isn't changed once it's built: every version of the catalog has its own (see CatalogSnapshot).
+    The next version's index is made by withChanges() in one pass over this one's arrays,
+    merging the added stars in and leaving the removed ones out, which is cheaper than sorting again.
+ */
+public class RangeIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final StarAttribute attribute;
+    private final Comparator<Star> order;
+    private double[] keys = new double[INITIAL_CAPACITY];
+    private Star[] stars = new Star[INITIAL_CAPACITY];
+    private int size;
+
+    public RangeIndex(StarAttribute attribute) {
+        this.attribute = attribute;
+        this.order = Comparator.<Star>comparingDouble(attribute::get).thenComparingInt(Star::getPackedName);
+    }
+
+    public StarAttribute getAttribute() {
+        return attribute;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // method that builds the index from scratch (used when there's no index of an older version)
+    public void build(Collection<Star> catalog) {
+        Star[] sorted = catalog.toArray(new Star[0]);
+        Arrays.parallelSort(sorted, order);
+
+        int capacity = Math.max(INITIAL_CAPACITY, sorted.length);
+        keys = new double[capacity];
+        stars = Arrays.copyOf(sorted, capacity);
+        size = sorted.length;
+        for (int i = 0; i < size; i++) {
+            keys[i] = attribute.get(stars[i]);
+        }
+    }
+
+    // method that makes a new index without removed stars and with added stars
+    // (this index isn't changed, readers of the older version can still use it)
+    public RangeIndex withChanges(Collection<Star> removed, Collection<Star> added) {
+        int[] removedPositions = new int[removed.size()];
+        int removedCount = 0;
+        for (Star star : removed) {
+            int position = positionOf(star);
+            if (position >= 0) {
+                removedPositions[removedCount++] = position;
+            }
+        }
+        Arrays.sort(removedPositions, 0, removedCount);
+        Star[] sortedAdded = added.toArray(new Star[0]);
+        Arrays.sort(sortedAdded, order);
+
+        RangeIndex next = new RangeIndex(attribute);
+        int capacity = Math.max(INITIAL_CAPACITY, size - removedCount + sortedAdded.length);
+        next.keys = new double[capacity];
+        next.stars = new Star[capacity];
+        int nextRemoved = 0;
+        int nextAdded = 0;
+        for (int i = 0; i < size; i++) {
+            if (nextRemoved < removedCount && removedPositions[nextRemoved] == i) {
+                nextRemoved++;
+                continue;
+            }
+            while (nextAdded < sortedAdded.length && order.compare(sortedAdded[nextAdded], stars[i]) < 0) {
+                next.append(sortedAdded[nextAdded++]);
+            }
+            next.keys[next.size] = keys[i];
+            next.stars[next.size] = stars[i];
+            next.size++;
+        }
+        while (nextAdded < sortedAdded.length) {
+            next.append(sortedAdded[nextAdded++]);
+        }
+        return next;
+    }
+
+    private void append(Star star) {
+        keys[size] = attribute.get(star);
+        stars[size] = star;
+        size++;
+    }
+
+    // position of a star in the arrays, -1 if it isn't in the index
+    private int positionOf(Star star) {
+        double key = attribute.get(star);
+        for (int position = lowerBound(key); position < size && keys[position] == key; position++) {
+            if (stars[position] == star) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    // stars with min <= key <= max, sorted by key
+    public List<Star> range(double min, double max) {
+        int from = lowerBound(min);
+        int to = upperBound(max);
+        List<Star> found = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            found.add(stars[i]);
+        }
+        return found;
+    }
+
+    // number of stars with min <= key <= max (without copying them)
+    public int count(double min, double max) {
+        return Math.max(0, upperBound(max) - lowerBound(min));
+    }
+
+    // first position with key >= value
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // first position with key > value
+    private int upperBound(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,243 @@
+package src.index;
+
+import src.models.Star;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Spatial index of star positions (equatorial coordinates) for cone and box searches
+/*
+    Every star's unit vector (x, y, z) on the celestial sphere (cached in Star) is copied
+    into a k-d tree (split on x, y, z in turn). The tree is kept in flat arrays:
+    the node of a range [low, high) is its middle element, left subtree is [low, middle),
+    right subtree is [middle + 1, high).
+
+    Angular distance r between two stars is compared as a dot product of their vectors
+    (dot >= cos r), and a branch of the tree is skipped when the searched position is further
+    than the chord length 2 sin(r / 2) from the splitting plane.
+ */
+public class SkyIndex {
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final Star[] stars;
+
+    private SkyIndex(int size) {
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+        stars = new Star[size];
+    }
+
+    // method that builds the index of given stars
+    public static SkyIndex build(Collection<Star> catalog) {
+        SkyIndex index = new SkyIndex(catalog.size());
+        int i = 0;
+        for (Star star : catalog) {
+            index.xs[i] = star.getX();
+            index.ys[i] = star.getY();
+            index.zs[i] = star.getZ();
+            index.stars[i] = star;
+            i++;
+        }
+        index.buildTree(0, index.stars.length, 0);
+        return index;
+    }
+
+    public int size() {
+        return stars.length;
+    }
+
+    // stars within radius (degrees) from given position (right ascension and declination in degrees)
+    public List<Star> coneSearch(double ra, double dec, double radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius can't be negative");
+        }
+        List<Star> found = new ArrayList<>();
+        if (radius >= 180) {
+            found.addAll(List.of(stars));
+            return found;
+        }
+
+        double[] center = unitVector(ra, dec);
+        double minDot = Math.cos(Math.toRadians(radius));
+        double chord = 2 * Math.sin(Math.toRadians(radius) / 2);
+        coneSearch(0, stars.length, 0, center, minDot, chord, found);
+        return found;
+    }
+
+    // stars with raMin <= right ascension <= raMax and decMin <= declination <= decMax (all in degrees)
+    // if raMin > raMax the box goes through 0h (e.g. 350..10)
+    public List<Star> boxSearch(double raMin, double raMax, double decMin, double decMax) {
+        Box box = new Box(raMin, raMax, decMin, decMax);
+        // search a cone around the box first, then check exact coordinates of stars inside it
+        List<Star> found = new ArrayList<>();
+        for (Star star : coneSearch(box.getRaCenter(), box.getDecCenter(), box.getRadius())) {
+            if (box.contains(star.getRaDegrees(), star.getDecDegrees())) {
+                found.add(star);
+            }
+        }
+        return found;
+    }
+
+    // box of a box search with the cone around it (also used by off-heap catalogs, which search without the tree)
+    public static final class Box {
+        private final double raMin;
+        private final double raWidth;
+        private final double decMin;
+        private final double decMax;
+        private final double raCenter;
+        private final double decCenter;
+        private final double radius;
+
+        public Box(double raMin, double raMax, double decMin, double decMax) {
+            if (decMin > decMax) {
+                throw new IllegalArgumentException("Minimal declination can't be greater than maximal declination");
+            }
+            this.raWidth = raMax - raMin >= 360 ? 360 : normalizeDegrees(raMax - raMin);
+            this.raMin = normalizeDegrees(raMin);
+            this.decMin = decMin;
+            this.decMax = decMax;
+
+            raCenter = this.raMin + raWidth / 2;
+            decCenter = (decMin + decMax) / 2;
+            // on the RA edges of a box wider than 180° the furthest point can be between the corners
+            double edgeDec = Math.toDegrees(Math.atan(Math.tan(Math.toRadians(decCenter)) / Math.cos(Math.toRadians(raWidth / 2))));
+            edgeDec = Double.isNaN(edgeDec) ? decCenter : Math.max(decMin, Math.min(decMax, edgeDec));
+            double furthest = 0;
+            for (double ra : new double[] {this.raMin, raCenter, this.raMin + raWidth}) {
+                for (double dec : new double[] {decMin, decCenter, edgeDec, decMax}) {
+                    furthest = Math.max(furthest, separation(raCenter, decCenter, ra, dec));
+                }
+            }
+            radius = furthest + 1e-9;
+        }
+
+        // center and radius of the cone around the box (in degrees)
+        public double getRaCenter() {
+            return raCenter;
+        }
+
+        public double getDecCenter() {
+            return decCenter;
+        }
+
+        public double getRadius() {
+            return radius;
+        }
+
+        // checks exact coordinates (in degrees) of a star found in the cone
+        public boolean contains(double ra, double dec) {
+            return normalizeDegrees(ra - raMin) <= raWidth && dec >= decMin && dec <= decMax;
+        }
+    }
+
+    // COORDINATES
+
+    // unit vector (x, y, z) of a position (right ascension and declination in degrees), same as Star.getX/Y/Z
+    public static double[] unitVector(double ra, double dec) {
+        double raRadians = Math.toRadians(ra);
+        double decRadians = Math.toRadians(dec);
+        return new double[] {
+                Math.cos(decRadians) * Math.cos(raRadians),
+                Math.cos(decRadians) * Math.sin(raRadians),
+                Math.sin(decRadians)
+        };
+    }
+
+    // angular distance between two positions (in degrees)
+    public static double separation(double ra1, double dec1, double ra2, double dec2) {
+        double dec1Radians = Math.toRadians(dec1);
+        double dec2Radians = Math.toRadians(dec2);
+        double dot = Math.sin(dec1Radians) * Math.sin(dec2Radians)
+                + Math.cos(dec1Radians) * Math.cos(dec2Radians) * Math.cos(Math.toRadians(ra1 - ra2));
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, dot))));
+    }
+
+    private static double normalizeDegrees(double degrees) {
+        double normalized = degrees % 360;
+        return normalized < 0 ? normalized + 360 : normalized;
+    }
+
+    // K-D TREE
+
+    private void coneSearch(int low, int high, int depth, double[] center, double minDot, double chord, List<Star> found) {
+        if (low >= high) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        if (xs[middle] * center[0] + ys[middle] * center[1] + zs[middle] * center[2] >= minDot) {
+            found.add(stars[middle]);
+        }
+
+        double split = coordinate(middle, depth % 3);
+        double value = center[depth % 3];
+        if (value - chord <= split) {
+            coneSearch(low, middle, depth + 1, center, minDot, chord, found);
+        }
+        if (value + chord >= split) {
+            coneSearch(middle + 1, high, depth + 1, center, minDot, chord, found);
+        }
+    }
+
+    // puts the median (on the splitting axis) in the middle of the range, smaller values before it, bigger after it
+    private void buildTree(int low, int high, int depth) {
+        if (high - low <= 1) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        select(low, high - 1, middle, depth % 3);
+        buildTree(low, middle, depth + 1);
+        buildTree(middle + 1, high, depth + 1);
+    }
+
+    // quickselect: moves k-th smallest value of the axis to position k
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = coordinate((left + right) >>> 1, axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) {
+                    i++;
+                }
+                while (coordinate(j, axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double coordinate(int i, int axis) {
+        return axis == 0 ? xs[i] : axis == 1 ? ys[i] : zs[i];
+    }
+
+    private void swap(int i, int j) {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        double z = zs[i];
+        zs[i] = zs[j];
+        zs[j] = z;
+        Star star = stars[i];
+        stars[i] = stars[j];
+        stars[j] = star;
+    }
+}
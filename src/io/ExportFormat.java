@@ -0,0 +1,21 @@
+package src.io;
+
+// formats of exported stars
+public enum ExportFormat {
+    CSV,   // header + one row per star (can be imported again with StarImporter)
+    JSON,  // one JSON object per line
+    TEXT;  // layout of "Display all Stars" in the menu (numbers rounded, the menu prints them in full)
+
+    // format validation
+    public static ExportFormat fromString(String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Export format can't be null");
+        }
+        switch (input.toLowerCase()) {
+            case "csv" -> {return CSV;}
+            case "json", "jsonl" -> {return JSON;}
+            case "text", "txt" -> {return TEXT;}
+            default -> throw new IllegalArgumentException("Invalid export format: " + input + " (choose csv, json or text)");
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package src.io;
+
+import src.models.StarRecord;
+import src.utils.GreekAlphabet;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Streams stars to a Writer as CSV, JSON lines or text (menu display)
+/*
+    Stars are written one by one as they come from the Iterable (e.g. StarRepository.records(),
+    which in mapped read mode reuses one StarView), so memory use doesn't depend on the number
+    of exported stars. Everything goes through one buffered Writer and numbers are written
+    digit by digit into a reused char buffer (no String.format, no temporary strings).
+    Views of the menu and of the command line (toView) print numbers of the text format in full
+    (Double.toString, like the menu always did), only exports are rounded to DECIMALS decimals.
+ */
+public final class StarExporter implements Flushable, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // decimals of exported numbers (trailing zeros are left out)
+    private static final int DECIMALS = 6;
+    private static final long SCALE = 1_000_000;
+    // bigger numbers are written with Double.toString
+    private static final double MAX_FIXED = 1e12;
+
+    static final String CSV_HEADER = "name,catalog_name,hemisphere,dec_deg,dec_min,dec_sec,ra_h,ra_m,ra_s,"
+            + "constellation,apparent_magnitude,absolute_magnitude,distance,temperature,mass";
+
+    private final Writer out;
+    private final ExportFormat format;
+    // numbers of the text format written with Double.toString instead of rounded
+    private final boolean fullPrecision;
+    private final char[] digits = new char[32];
+    private boolean headerWritten;
+
+    public StarExporter(Writer out, ExportFormat format) {
+        this(out, format, false);
+    }
+
+    private StarExporter(Writer out, ExportFormat format, boolean fullPrecision) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+        this.format = format;
+        this.fullPrecision = fullPrecision;
+    }
+
+    // exporter writing to a file (UTF-8)
+    public static StarExporter toFile(Path file, ExportFormat format) throws IOException {
+        return new StarExporter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), format);
+    }
+
+    // exporter writing to the console (call flush() instead of close(), the console stays open)
+    public static StarExporter toConsole(PrintStream console, ExportFormat format) {
+        return new StarExporter(new OutputStreamWriter(console, console.charset()), format);
+    }
+
+    // exporter showing stars on the console as text with numbers in full (menu and command line views, not exports)
+    public static StarExporter toView(PrintStream console) {
+        return new StarExporter(new OutputStreamWriter(console, console.charset()), ExportFormat.TEXT, true);
+    }
+
+    // method that writes all stars, returns the number of written stars
+    public long exportAll(Iterable<? extends StarRecord> stars) throws IOException {
+        long count = 0;
+        for (StarRecord star : stars) {
+            write(star);
+            count++;
+        }
+        if (format == ExportFormat.CSV && !headerWritten) {
+            writeHeader();
+        }
+        return count;
+    }
+
+    // method that writes stars as one JSON array (used for HTTP responses), returns the number of written stars
+    public long exportJsonArray(Iterable<? extends StarRecord> stars) throws IOException {
+        long count = 0;
+        out.write('[');
+        for (StarRecord star : stars) {
+            if (count > 0) {
+                out.write(',');
+            }
+            writeJson(star);
+            count++;
+        }
+        out.write(']');
+        return count;
+    }
+
+    // method that writes one star
+    public void write(StarRecord star) throws IOException {
+        switch (format) {
+            case CSV -> writeCsv(star);
+            case JSON -> {
+                writeJson(star);
+                out.write('\n');
+            }
+            case TEXT -> writeText(star);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // FORMATS
+
+    private void writeHeader() throws IOException {
+        out.write(CSV_HEADER);
+        out.write('\n');
+        headerWritten = true;
+    }
+
+    private void writeCsv(StarRecord star) throws IOException {
+        if (!headerWritten) {
+            writeHeader();
+        }
+        out.write(star.getName());
+        out.write(',');
+        writeCsvText(greekLetter(star), star.getConstellation());
+        out.write(',');
+        out.write(star.getHemisphere().getAbbreviation());
+        out.write(',');
+        writeInt(star.getDeclinationDegrees());
+        out.write(',');
+        writeInt(star.getDeclinationMinutes());
+        out.write(',');
+        writeNumber(star.getDeclinationSeconds());
+        out.write(',');
+        writeInt(star.getRightAscensionHours());
+        out.write(',');
+        writeInt(star.getRightAscensionMinutes());
+        out.write(',');
+        writeNumber(star.getRightAscensionSeconds());
+        out.write(',');
+        writeCsvText(null, star.getConstellation());
+        out.write(',');
+        writeNumber(star.getApparentMagnitude());
+        out.write(',');
+        writeNumber(star.getAbsoluteMagnitude());
+        out.write(',');
+        writeNumber(star.getDistance());
+        out.write(',');
+        writeNumber(star.getTemperature());
+        out.write(',');
+        writeNumber(star.getMass());
+        out.write('\n');
+    }
+
+    private void writeJson(StarRecord star) throws IOException {
+        out.write("{\"name\":\"");
+        out.write(star.getName());
+        out.write("\",\"catalogName\":\"");
+        out.write(greekLetter(star));
+        out.write(' ');
+        writeJsonText(star.getConstellation());
+        out.write("\",\"hemisphere\":\"");
+        out.write(star.getHemisphere().getAbbreviation());
+        out.write("\",\"declination\":{\"degrees\":");
+        writeInt(star.getDeclinationDegrees());
+        out.write(",\"minutes\":");
+        writeInt(star.getDeclinationMinutes());
+        out.write(",\"seconds\":");
+        writeJsonNumber(star.getDeclinationSeconds());
+        out.write("},\"rightAscension\":{\"hours\":");
+        writeInt(star.getRightAscensionHours());
+        out.write(",\"minutes\":");
+        writeInt(star.getRightAscensionMinutes());
+        out.write(",\"seconds\":");
+        writeJsonNumber(star.getRightAscensionSeconds());
+        out.write("},\"constellation\":\"");
+        writeJsonText(star.getConstellation());
+        out.write("\",\"apparentMagnitude\":");
+        writeJsonNumber(star.getApparentMagnitude());
+        out.write(",\"absoluteMagnitude\":");
+        writeJsonNumber(star.getAbsoluteMagnitude());
+        out.write(",\"distance\":");
+        writeJsonNumber(star.getDistance());
+        out.write(",\"temperature\":");
+        writeJsonNumber(star.getTemperature());
+        out.write(",\"mass\":");
+        writeJsonNumber(star.getMass());
+        out.write('}');
+    }
+
+    private void writeText(StarRecord star) throws IOException {
+        out.write("-------------------------\nName: ");
+        out.write(star.getName());
+        out.write("\nCatalog name: ");
+        out.write(greekLetter(star));
+        out.write(' ');
+        out.write(star.getConstellation());
+        out.write("\nHemisphere: ");
+        out.write(star.getHemisphere().name());
+        out.write("\nDeclination: ");
+        writeInt(star.getDeclinationDegrees());
+        out.write("° ");
+        writeInt(star.getDeclinationMinutes());
+        out.write("' ");
+        writeTextNumber(star.getDeclinationSeconds());
+        out.write("''\nRight ascension: ");
+        writeInt(star.getRightAscensionHours());
+        out.write("h ");
+        writeInt(star.getRightAscensionMinutes());
+        out.write("m ");
+        writeTextNumber(star.getRightAscensionSeconds());
+        out.write("s\nConstellation: ");
+        out.write(star.getConstellation());
+        out.write("\nApparent magnitude: ");
+        writeTextNumber(star.getApparentMagnitude());
+        out.write("\nAbsolute magnitude: ");
+        writeTextNumber(star.getAbsoluteMagnitude());
+        out.write("\nDistance: ");
+        writeTextNumber(star.getDistance());
+        out.write(" light years\nTemperature: ");
+        writeTextNumber(star.getTemperature());
+        out.write("°C\nMass: ");
+        writeTextNumber(star.getMass());
+        out.write(" solar mass\n-------------------------\n\n");
+    }
+
+    // greek letter of the catalog name (catalog name = greek letter + " " + constellation)
+    private static String greekLetter(StarRecord star) {
+        return GreekAlphabet.values()[star.getGreekOrdinal()].name();
+    }
+
+    // writes CSV value (prefix + " " + text when prefix isn't null), quoted only when it's needed
+    private void writeCsvText(String prefix, String text) throws IOException {
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0;
+        if (quote) {
+            out.write('"');
+        }
+        if (prefix != null) {
+            out.write(prefix);
+            out.write(' ');
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        if (quote) {
+            out.write('"');
+        }
+    }
+
+    private void writeJsonText(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write("\\u00");
+                out.write(Character.forDigit(c >> 4, 16));
+                out.write(Character.forDigit(c & 0xF, 16));
+            } else {
+                out.write(c);
+            }
+        }
+    }
+
+    // NUMBERS
+
+    private void writeInt(long value) throws IOException {
+        int end = digits.length;
+        int position = end;
+        long rest = Math.abs(value);
+        do {
+            digits[--position] = (char) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest > 0);
+        if (value < 0) {
+            digits[--position] = '-';
+        }
+        out.write(digits, position, end - position);
+    }
+
+    private void writeJsonNumber(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.write("null"); // JSON has no NaN/Infinity
+        } else {
+            writeNumber(value);
+        }
+    }
+
+    private void writeTextNumber(double value) throws IOException {
+        if (fullPrecision) {
+            out.write(Double.toString(value));
+        } else {
+            writeNumber(value);
+        }
+    }
+
+    // writes a number with up to DECIMALS decimals and at least one (e.g. 5000.0, 2.5, -0.123457)
+    private void writeNumber(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_FIXED) {
+            out.write(Double.toString(value));
+            return;
+        }
+        long scaled = Math.round(Math.abs(value) * SCALE);
+        long whole = scaled / SCALE;
+        long fraction = scaled % SCALE;
+
+        int end = digits.length;
+        int position = end;
+        // fraction without trailing zeros (at least one digit)
+        int decimals = DECIMALS;
+        while (decimals > 1 && fraction % 10 == 0) {
+            fraction /= 10;
+            decimals--;
+        }
+        for (int i = 0; i < decimals; i++) {
+            digits[--position] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        digits[--position] = '.';
+        do {
+            digits[--position] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole > 0);
+        if (value < 0 && scaled != 0) {
+            digits[--position] = '-';
+        }
+        out.write(digits, position, end - position);
+    }
+}
@@ -0,0 +1,429 @@
+package src.io;
+
+import src.models.Constellation;
+import src.models.ConstellationRegistry;
+import src.models.Declination;
+import src.models.RightAscension;
+import src.models.Star;
+import src.models.StarRepository;
+import src.utils.Hemisphere;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bulk import of stars from a CSV file
+/*
+    The file is read line by line and split into chunks. Chunks are parsed and validated
+    in parallel (same rules as Star.create, Declination and RightAscension), then
+    the parsed rows are handled in file order: duplicates are rejected and greek letters are
+    given out per constellation in the order of the file, so importing the same file always
+    gives the same catalog names. Accepted stars are saved in big batches (see Star.saveStars).
+    Locks of the constellations of a batch are held from giving out the letters until the batch is saved
+    (see Star.createUnsaved), so imports run one at a time - two of them could wait for each other's locks.
+
+    Header (first line) decides which column is which:
+        name, hemisphere, dec_deg, dec_min, dec_sec, ra_h, ra_m, ra_s, constellation,
+        apparent_magnitude, distance (light years), temperature, mass
+    HYG-style columns are accepted too: ra (decimal hours), dec (decimal degrees, hemisphere is
+    taken from its sign), mag, dist (parsecs), con, temp.
+
+    Rejected rows are written to <file>.rejects.csv (line number, reason, original line).
+ */
+public final class StarImporter {
+
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int SAVE_BATCH_SIZE = 50_000;
+    private static final double LIGHT_YEARS_PER_PARSEC = 3.26;
+    private static final ReentrantLock RUNNING = new ReentrantLock();
+
+    private final Path file;
+    private final int threads;
+
+    // column positions from the header (-1 if the column is missing)
+    private int name, hemisphere, decDegrees, decMinutes, decSeconds, raHours, raMinutes, raSeconds,
+            decDecimal, raDecimal, constellation, apparentMagnitude, distance, distanceParsecs, temperature, mass;
+
+    public StarImporter(Path file) {
+        this(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    public StarImporter(Path file, int threads) {
+        this.file = file;
+        this.threads = Math.max(1, threads);
+    }
+
+    // result of an import
+    public static final class Report {
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+        private long elapsedNanos;
+        private Path rejectFile;
+
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public double getSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rowsRead / getSeconds();
+        }
+
+        // file with rejected rows (null if every row was imported)
+        public Path getRejectFile() {
+            return rejectFile;
+        }
+
+        @Override
+        public String toString() {
+            return "Read " + rowsRead + " rows, imported " + imported + ", rejected " + rejected
+                    + " in " + String.format(Locale.ROOT, "%.2f s (%.0f rows/s)", getSeconds(), getRowsPerSecond())
+                    + (rejectFile == null ? "" : "\nRejected rows: " + rejectFile);
+        }
+    }
+
+    // one parsed row - values of a star, or reason why the row was rejected
+    private static final class Row {
+        final long line;
+        final String text;
+        String rejectReason;
+        String name;
+        Hemisphere hemisphere;
+        Declination declination;
+        RightAscension rightAscension;
+        Constellation constellation;
+        double apparentMagnitude, distance, temperature, mass;
+
+        Row(long line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    // method that imports all rows of the file into the catalog
+    public Report run() throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report();
+        Path rejectFile = Paths.get(file + ".rejects.csv");
+        Files.deleteIfExists(rejectFile);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        BufferedWriter rejects = null;
+        List<Star> batch = new ArrayList<>();
+        RUNNING.lock();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IOException("File is empty: " + file);
+            }
+            readHeader(splitCsv(header));
+
+            // parsed chunks waiting to be saved, at most 2 chunks per thread are parsed at once
+            ArrayDeque<Future<List<Row>>> pending = new ArrayDeque<>();
+            Set<String> names = new HashSet<>();
+            long lineNumber = 1;
+            boolean endOfFile = false;
+
+            while (!endOfFile || !pending.isEmpty()) {
+                while (!endOfFile && pending.size() < threads * 2) {
+                    List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+                    String line;
+                    while (chunk.size() < CHUNK_SIZE && (line = reader.readLine()) != null) {
+                        lineNumber++;
+                        if (!line.isBlank()) {
+                            chunk.add(new Row(lineNumber, line));
+                        }
+                    }
+                    if (chunk.size() < CHUNK_SIZE) {
+                        endOfFile = true;
+                    }
+                    if (!chunk.isEmpty()) {
+                        pending.add(pool.submit(() -> parseChunk(chunk)));
+                    }
+                }
+                if (pending.isEmpty()) {
+                    break;
+                }
+
+                for (Row row : waitFor(pending.poll())) {
+                    report.rowsRead++;
+                    if (row.rejectReason == null) {
+                        accept(row, names, batch);
+                    }
+                    if (row.rejectReason != null) {
+                        if (rejects == null) {
+                            rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8);
+                            rejects.write("line,reason,row");
+                            rejects.newLine();
+                        }
+                        writeReject(rejects, row);
+                        report.rejected++;
+                    }
+                }
+                if (batch.size() >= SAVE_BATCH_SIZE) {
+                    report.imported += save(batch);
+                }
+            }
+            report.imported += save(batch);
+        }
+        finally {
+            // stars of a batch that wasn't saved (the import failed) give back their letters and locks
+            Star.discardUnsaved(batch);
+            RUNNING.unlock();
+            pool.shutdownNow();
+            if (rejects != null) {
+                rejects.close();
+                report.rejectFile = rejectFile;
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // CSV COLUMNS
+
+    private void readHeader(List<String> columns) throws IOException {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            positions.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        name = column(positions, "name", "proper_id");
+        hemisphere = column(positions, "hemisphere");
+        decDegrees = column(positions, "dec_deg");
+        decMinutes = column(positions, "dec_min");
+        decSeconds = column(positions, "dec_sec");
+        raHours = column(positions, "ra_h");
+        raMinutes = column(positions, "ra_m");
+        raSeconds = column(positions, "ra_s");
+        decDecimal = column(positions, "dec");
+        raDecimal = column(positions, "ra");
+        constellation = column(positions, "constellation", "con");
+        apparentMagnitude = column(positions, "apparent_magnitude", "mag");
+        distance = column(positions, "distance");
+        distanceParsecs = column(positions, "dist");
+        temperature = column(positions, "temperature", "temp");
+        mass = column(positions, "mass");
+
+        List<String> missing = new ArrayList<>();
+        if (name < 0) missing.add("name");
+        if (decDegrees < 0 && decDecimal < 0) missing.add("dec_deg or dec");
+        if (raHours < 0 && raDecimal < 0) missing.add("ra_h or ra");
+        if (constellation < 0) missing.add("constellation");
+        if (apparentMagnitude < 0) missing.add("apparent_magnitude");
+        if (distance < 0 && distanceParsecs < 0) missing.add("distance");
+        if (temperature < 0) missing.add("temperature");
+        if (mass < 0) missing.add("mass");
+        if (!missing.isEmpty()) {
+            throw new IOException("Missing columns in header: " + String.join(", ", missing));
+        }
+    }
+
+    private static int column(Map<String, Integer> positions, String... names) {
+        for (String name : names) {
+            Integer position = positions.get(name);
+            if (position != null) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    // PARSING (runs in parallel)
+
+    private List<Row> parseChunk(List<Row> chunk) {
+        for (Row row : chunk) {
+            try {
+                parse(row, splitCsv(row.text));
+            }
+            catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                row.rejectReason = e.getMessage() == null ? e.toString() : e.getMessage();
+            }
+        }
+        return chunk;
+    }
+
+    private void parse(Row row, List<String> values) {
+        row.name = text(values, name);
+
+        if (decDegrees >= 0) {
+            row.declination = new Declination(integer(values, decDegrees), integer(values, decMinutes), number(values, decSeconds));
+            row.hemisphere = hemisphere >= 0 ? Hemisphere.fromString(text(values, hemisphere))
+                    : row.declination.getXX() < 0 ? Hemisphere.SOUTHERN : Hemisphere.NORTHERN;
+        } else {
+            double dec = number(values, decDecimal);
+            row.hemisphere = hemisphere >= 0 ? Hemisphere.fromString(text(values, hemisphere))
+                    : dec < 0 ? Hemisphere.SOUTHERN : Hemisphere.NORTHERN;
+            int[] dms = sexagesimal(Math.abs(dec));
+            row.declination = new Declination(dec < 0 ? -dms[0] : dms[0], dms[1], dms[2] / 1000.0);
+        }
+
+        if (raHours >= 0) {
+            row.rightAscension = new RightAscension(integer(values, raHours), integer(values, raMinutes), number(values, raSeconds));
+        } else {
+            int[] hms = sexagesimal(number(values, raDecimal));
+            row.rightAscension = new RightAscension(hms[0], hms[1], hms[2] / 1000.0);
+        }
+
+        String constellationName = text(values, constellation);
+        if (constellationName.isEmpty()) {
+            throw new IllegalArgumentException("Constellation cannot be empty.");
+        }
+        row.constellation = ConstellationRegistry.intern(constellationName);
+        row.apparentMagnitude = number(values, apparentMagnitude);
+        row.distance = distance >= 0 ? number(values, distance) : number(values, distanceParsecs) * LIGHT_YEARS_PER_PARSEC;
+        row.temperature = number(values, temperature);
+        row.mass = number(values, mass);
+
+        Star.validate(row.name, row.hemisphere, row.declination, row.rightAscension, row.constellation,
+                row.apparentMagnitude, row.distance, row.temperature, row.mass);
+    }
+
+    // decimal value -> whole units, minutes, thousandths of seconds (rounded so that seconds never reach 60)
+    private static int[] sexagesimal(double value) {
+        if (Double.isNaN(value) || value < 0) {
+            throw new IllegalArgumentException("Invalid coordinate: " + value);
+        }
+        long milliseconds = Math.round(value * 3_600_000);
+        return new int[] {(int) (milliseconds / 3_600_000), (int) (milliseconds / 60_000 % 60), (int) (milliseconds % 60_000)};
+    }
+
+    private static String text(List<String> values, int column) {
+        return values.get(column).trim();
+    }
+
+    private static int integer(List<String> values, int column) {
+        String value = text(values, column);
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid whole number: '" + value + "'");
+        }
+    }
+
+    private static double number(List<String> values, int column) {
+        String value = text(values, column);
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: '" + value + "'");
+        }
+    }
+
+    // splits a CSV line (values can be quoted, "" inside quotes is a quote)
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    // SAVING (in file order)
+
+    // creates the star of a valid row (gives it the next greek letter of its constellation, which stays locked until the batch is saved)
+    private static void accept(Row row, Set<String> names, List<Star> batch) throws IOException {
+        if (!names.add(row.name) || StarRepository.findByName(row.name) != null) {
+            row.rejectReason = "A star with this name already exists";
+            return;
+        }
+        try {
+            Star.addConstellationToCatalog(row.constellation);
+            batch.add(Star.createUnsaved(row.name, row.hemisphere, row.declination, row.rightAscension, row.constellation,
+                    row.apparentMagnitude, row.distance, row.temperature, row.mass));
+        }
+        catch (IllegalArgumentException | IllegalStateException e) {
+            names.remove(row.name);
+            row.rejectReason = e.getMessage();
+        }
+    }
+
+    private static int save(List<Star> batch) {
+        int saved = batch.size();
+        if (saved > 0) {
+            try {
+                Star.saveStars(batch);
+            }
+            finally {
+                batch.clear(); // saveStars released the locks of the batch
+            }
+        }
+        return saved;
+    }
+
+    private static void writeReject(BufferedWriter rejects, Row row) throws IOException {
+        rejects.write(Long.toString(row.line));
+        rejects.write(',');
+        rejects.write(quote(row.rejectReason));
+        rejects.write(',');
+        rejects.write(quote(row.text));
+        rejects.newLine();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static List<Row> waitFor(Future<List<Row>> chunk) throws IOException {
+        try {
+            return chunk.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import was interrupted", e);
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Couldn't parse rows", e.getCause());
+        }
+    }
+}
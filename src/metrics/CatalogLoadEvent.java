@@ -0,0 +1,29 @@
+package src.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event: the whole catalog read into memory (catalog file or old .obj files)
+@Name("starmanager.CatalogLoad")
+@Label("Catalog Load")
+@Category({"StarManager", "Catalog"})
+@Description("All stars read from the catalog file or from .obj files of older versions")
+public final class CatalogLoadEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Stars")
+    public int stars;
+
+    @Label("Failures")
+    @Description("Records or files that couldn't be decoded")
+    public int failures;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
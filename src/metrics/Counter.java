@@ -0,0 +1,37 @@
+package src.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Number of events (e.g. records written), safe to increment from many threads at once
+public final class Counter implements CounterMXBean {
+
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getValue() {
+        return value.sum();
+    }
+
+    @Override
+    public void reset() {
+        value.reset();
+    }
+}
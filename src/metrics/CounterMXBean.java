@@ -0,0 +1,11 @@
+package src.metrics;
+
+// JMX view of a Counter
+public interface CounterMXBean {
+
+    String getName();
+
+    long getValue();
+
+    void reset();
+}
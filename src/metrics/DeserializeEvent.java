@@ -0,0 +1,29 @@
+package src.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event: one .obj file, or one chunk of catalog file records, decoded into stars
+@Name("starmanager.Deserialize")
+@Label("Star Deserialization")
+@Category({"StarManager", "Catalog"})
+@Description("An .obj file or a chunk of catalog file records decoded into stars (threads of a load run in parallel)")
+public final class DeserializeEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    @Description("File name, with the range of records for the catalog file")
+    public String source;
+
+    @Label("Stars")
+    public int stars;
+
+    @Label("Failures")
+    public int failures;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
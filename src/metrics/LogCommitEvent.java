@@ -0,0 +1,22 @@
+package src.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event: a batch of the write-ahead log forced to disk and written to the catalog file
+@Name("starmanager.LogCommit")
+@Label("Log Commit")
+@Category({"StarManager", "Catalog"})
+@Description("A batch of saved/deleted stars appended to the log with one fsync, then written to the catalog file")
+public final class LogCommitEvent extends jdk.jfr.Event {
+
+    @Label("Entries")
+    public int entries;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,135 @@
+package src.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Latencies and counters of catalog operations, shown by "Main metrics", GET /metrics and JMX
+/*
+    Every metric is a static field, so recording is just Metrics.STAR_SAVE.recordSince(start)
+    or Metrics.RECORDS_WRITTEN.increment() - no lookup by name on hot paths.
+    registerMBeans() exposes every metric as an MBean (jconsole, VisualVM, any JMX client):
+    starmanager:type=Latency,name=<name> with count/mean/p50/p90/p99/p99.9/max in milliseconds,
+    starmanager:type=Counter,name=<name> with its value.
+    Metrics count from the start of the program (or the last reset).
+ */
+public final class Metrics {
+
+    private static final List<LatencyHistogram> latencies = new ArrayList<>();
+    private static final List<Counter> counters = new ArrayList<>();
+
+    // LATENCIES
+
+    // reading and decoding the whole catalog file (or old .obj files)
+    public static final LatencyHistogram CATALOG_LOAD = latency("catalog.load");
+    // saving one star (adds it to the current batch of the log)
+    public static final LatencyHistogram STAR_SAVE = latency("star.save");
+    // removing a star together with renumbering its constellation
+    public static final LatencyHistogram STAR_REMOVE = latency("star.remove");
+    // saving renamed stars of a constellation after a removal
+    public static final LatencyHistogram CATALOG_UPDATE = latency("catalog.update");
+    // committing a batch of the log (one fsync) and writing it to the catalog file
+    public static final LatencyHistogram LOG_COMMIT = latency("log.commit");
+    // searches
+    public static final LatencyHistogram SEARCH_DISTANCE = latency("search.distance");
+    public static final LatencyHistogram SEARCH_TEMPERATURE = latency("search.temperature");
+    public static final LatencyHistogram SEARCH_MAGNITUDE = latency("search.magnitude");
+    public static final LatencyHistogram SEARCH_HEMISPHERE = latency("search.hemisphere");
+    public static final LatencyHistogram SEARCH_SUPERNOVAS = latency("search.supernovas");
+    public static final LatencyHistogram SEARCH_CONSTELLATION = latency("search.constellation");
+    public static final LatencyHistogram SEARCH_CONE = latency("search.cone");
+    public static final LatencyHistogram SEARCH_BOX = latency("search.box");
+    // every StarQuery (also the ones run by the searches above)
+    public static final LatencyHistogram QUERY = latency("query");
+    // HTTP requests, from parsing parameters to sending the response
+    public static final LatencyHistogram HTTP_REQUEST = latency("http.request");
+
+    // COUNTERS
+
+    // catalog file, log or .obj file read as a whole
+    public static final Counter FILES_READ = counter("files.read");
+    public static final Counter BYTES_READ = counter("bytes.read");
+    // stars decoded from the catalog file or .obj files
+    public static final Counter RECORDS_READ = counter("records.read");
+    // records of the catalog file written (saved or deleted stars)
+    public static final Counter RECORDS_WRITTEN = counter("records.written");
+    // encoded stars: log entries and catalog file records
+    public static final Counter BYTES_SERIALIZED = counter("bytes.serialized");
+    // fsyncs of the log (one per committed batch)
+    public static final Counter LOG_SYNCS = counter("log.syncs");
+    // records/.obj files that couldn't be decoded
+    public static final Counter DESERIALIZATION_FAILURES = counter("deserialization.failures");
+    // errors printed to System.err (failed saves, deletes, loads)
+    public static final Counter ERRORS = counter("errors");
+
+    private static boolean registered;
+
+    private Metrics() {
+    }
+
+    private static LatencyHistogram latency(String name) {
+        LatencyHistogram histogram = new LatencyHistogram(name);
+        latencies.add(histogram);
+        return histogram;
+    }
+
+    private static Counter counter(String name) {
+        Counter counter = new Counter(name);
+        counters.add(counter);
+        return counter;
+    }
+
+    public static List<LatencyHistogram> latencies() {
+        return Collections.unmodifiableList(latencies);
+    }
+
+    public static List<Counter> counters() {
+        return Collections.unmodifiableList(counters);
+    }
+
+    // method that registers every metric in the platform MBean server (only the first call does anything)
+    public static synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (LatencyHistogram histogram : latencies) {
+                server.registerMBean(histogram, new ObjectName("starmanager:type=Latency,name=" + histogram.getName()));
+            }
+            for (Counter counter : counters) {
+                server.registerMBean(counter, new ObjectName("starmanager:type=Counter,name=" + counter.getName()));
+            }
+            registered = true;
+        } catch (JMException e) {
+            System.err.println("Error: Couldn't register metrics in JMX: " + e.getMessage());
+        }
+    }
+
+    public static void reset() {
+        latencies.forEach(LatencyHistogram::reset);
+        counters.forEach(Counter::reset);
+    }
+
+    // text report: a line per operation (times in milliseconds), then a line per counter
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-26s %9s %10s %10s %10s %10s %10s %10s%n",
+                "latency (ms)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (LatencyHistogram histogram : latencies) {
+            report.append(String.format("%-26s %9d %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    histogram.getName(), histogram.getCount(), histogram.getMeanMillis(),
+                    histogram.getP50Millis(), histogram.getP90Millis(), histogram.getP99Millis(),
+                    histogram.getP999Millis(), histogram.getMaxMillis()));
+        }
+        report.append(String.format("%n%-26s %9s%n", "counter", "value"));
+        for (Counter counter : counters) {
+            report.append(String.format("%-26s %9d%n", counter.getName(), counter.getValue()));
+        }
+        return report.toString();
+    }
+}
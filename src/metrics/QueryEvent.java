@@ -0,0 +1,24 @@
+package src.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event: one search of the catalog (StarQuery, cone or box search)
+@Name("starmanager.Query")
+@Label("Query")
+@Category({"StarManager", "Search"})
+@Description("A search of the catalog with the way it was run")
+public final class QueryEvent extends jdk.jfr.Event {
+
+    @Label("Plan")
+    @Description("Index or scan used by the search and its criteria")
+    public String plan;
+
+    @Label("Constellation")
+    public String constellation;
+
+    @Label("Stars Found")
+    public int stars;
+}
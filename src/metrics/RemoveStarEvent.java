@@ -0,0 +1,26 @@
+package src.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event: a star removed together with renumbering the rest of its constellation
+@Name("starmanager.RemoveStar")
+@Label("Remove Star")
+@Category({"StarManager", "Catalog"})
+@Description("A star removed and the following stars of its constellation renamed and saved again")
+public final class RemoveStarEvent extends jdk.jfr.Event {
+
+    @Label("Star")
+    public String star;
+
+    @Label("Catalog Name")
+    public String catalogName;
+
+    @Label("Constellation")
+    public String constellation;
+
+    @Label("Renamed Stars")
+    public int renamedStars;
+}
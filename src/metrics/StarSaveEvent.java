@@ -0,0 +1,24 @@
+package src.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event: stars saved to the catalog (one star, or all stars of a bulk import)
+@Name("starmanager.StarSave")
+@Label("Star Save")
+@Category({"StarManager", "Catalog"})
+@Description("Stars added to the current batch of the log (written to disk by the next Log Commit)")
+public final class StarSaveEvent extends jdk.jfr.Event {
+
+    @Label("Star")
+    @Description("Name of the saved star, empty for a bulk import")
+    public String star;
+
+    @Label("Constellation")
+    public String constellation;
+
+    @Label("Stars")
+    public int stars;
+}
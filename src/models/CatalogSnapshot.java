@@ -0,0 +1,382 @@
+package src.models;
+
+import src.index.RangeIndex;
+import src.index.SkyIndex;
+import src.query.ColumnarStarStore;
+import src.query.StarAttribute;
+import src.utils.GreekAlphabet;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+// One version of the catalog (all stars, lookups by name, stars of every constellation)
+/*
+    A snapshot never changes: a change of the catalog (adding stars, removing a star together with
+    renumbering the rest of its constellation) makes a new snapshot, and StarRepository publishes it in one step.
+    Renamed stars are new Star objects, so stars of older snapshots keep their catalog names.
+
+    Readers take StarRepository.snapshot() once and get a consistent catalog for as long as they need it
+    (e.g. a long export), without locks and without seeing a constellation with a missing or doubled letter.
+    The next snapshot shares everything it doesn't change with this one: it copies the array of member lists
+    (one entry per constellation) and only the member lists of the constellations it changes, and the name
+    index copies only its tables with changed names (see StarNameIndex) - a change doesn't copy all stars.
+    All stars (getStars()) are a view of the member lists, constellation after constellation.
+    Stars are looked up by catalog name in the members of their constellation (position = greek letter),
+    so catalog names don't need their own map.
+
+    Columns and sorted indexes used by queries belong to the version too, so a query plans and runs against
+    one snapshot without locks. They're built on the first query in a version (like the sky index).
+    Until then a version keeps the latest older version that has them: only constellations whose member
+    lists differ are compared, unchanged constellations are copied row by row from its columns and its sorted
+    indexes are merged with the added and removed stars (see RangeIndex.withChanges) - not built again.
+ */
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, emptyMembers(0), 0, StarNameIndex.EMPTY, null);
+
+    private static final GreekAlphabet[] GREEK_LETTERS = GreekAlphabet.values();
+
+    private final long version;
+    // stars of every constellation (by ConstellationRegistry id) ordered by greek letter
+    // (position in the list = greek letter ordinal), null if the constellation has no stars
+    private final List<Star>[] members;
+    private final int size;
+    private final StarNameIndex starsByName;
+    private final List<Star> stars;
+    // spatial index for cone/box searches, built on the first search in this version
+    private volatile SkyIndex skyIndex;
+    // columns and sorted indexes for queries, built on the first query in this version
+    private volatile QueryIndexes queryIndexes;
+    // older version with built query indexes they're made from, null once they're built (or if there's none)
+    private volatile CatalogSnapshot indexedVersion;
+
+    private CatalogSnapshot(long version, List<Star>[] members, int size, StarNameIndex starsByName,
+                            CatalogSnapshot indexedVersion) {
+        this.version = version;
+        this.members = members;
+        this.size = size;
+        this.starsByName = starsByName;
+        this.stars = new AllStars();
+        this.indexedVersion = indexedVersion;
+    }
+
+    // columns and sorted indexes of one version (never changed after they're built)
+    private static final class QueryIndexes {
+        private final ColumnarStarStore columns;
+        private final Map<StarAttribute, RangeIndex> rangeIndexes;
+
+        QueryIndexes(ColumnarStarStore columns, Map<StarAttribute, RangeIndex> rangeIndexes) {
+            this.columns = columns;
+            this.rangeIndexes = Collections.unmodifiableMap(rangeIndexes);
+        }
+    }
+
+    // snapshot of stars loaded from disk
+    static CatalogSnapshot of(long version, List<Star> loaded) {
+        StarNameIndex starsByName = new StarNameIndex(loaded.size());
+        List<Star>[] members = emptyMembers(ConstellationRegistry.size());
+        for (Star star : loaded) {
+            starsByName.put(star);
+            int id = star.getConstellationId();
+            if (members[id] == null) {
+                members[id] = new ArrayList<>();
+            }
+            members[id].add(star);
+        }
+        for (int id = 0; id < members.length; id++) {
+            if (members[id] != null) {
+                members[id] = sortedCopy(members[id]);
+            }
+        }
+        return new CatalogSnapshot(version, members, loaded.size(), starsByName, null);
+    }
+
+    // number of changes of the catalog before this version
+    public long getVersion() {
+        return version;
+    }
+
+    // all stars, constellation after constellation (read only view, made of the member lists)
+    public List<Star> getStars() {
+        return stars;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // star by its name (e.g. ABC1234), null if there's no such star
+    public Star findByName(String name) {
+        int packedName = Star.packName(name.trim().toUpperCase(Locale.ROOT));
+        return packedName < 0 ? null : starsByName.get(packedName);
+    }
+
+    // star by its catalog name (e.g. alpha Orion, case insensitive), null if there's no such star
+    public Star findByCatalogName(String catalogName) {
+        String trimmed = catalogName.trim();
+        int space = trimmed.indexOf(' ');
+        if (space < 0) {
+            return null;
+        }
+        String letter = trimmed.substring(0, space);
+        for (GreekAlphabet greekLetter : GREEK_LETTERS) {
+            if (greekLetter.name().equalsIgnoreCase(letter)) {
+                return findMember(getConstellationMembersIgnoreCase(trimmed.substring(space + 1)), greekLetter.ordinal());
+            }
+        }
+        return null;
+    }
+
+    private static Star findMember(List<Star> members, int greekOrdinal) {
+        if (greekOrdinal < members.size() && members.get(greekOrdinal).getGreekOrdinal() == greekOrdinal) {
+            return members.get(greekOrdinal);
+        }
+        // only in catalogs with a missing or doubled letter (e.g. synthetic catalogs of benchmarks)
+        for (Star star : members) {
+            if (star.getGreekOrdinal() == greekOrdinal) {
+                return star;
+            }
+        }
+        return null;
+    }
+
+    // stars of a constellation ordered by greek letter (read only, empty if there are no stars in it)
+    public List<Star> getConstellationMembers(String constellationName) {
+        return members(ConstellationRegistry.find(constellationName));
+    }
+
+    // same, but constellation name is case insensitive
+    public List<Star> getConstellationMembersIgnoreCase(String constellationName) {
+        int id = ConstellationRegistry.find(constellationName);
+        if (id < 0 || id >= members.length || members[id] == null) {
+            for (int candidate = 0; candidate < members.length; candidate++) {
+                if (members[candidate] != null && ConstellationRegistry.name(candidate).equalsIgnoreCase(constellationName)) {
+                    return members[candidate];
+                }
+            }
+        }
+        return members(id);
+    }
+
+    private List<Star> members(int id) {
+        return id >= 0 && id < members.length && members[id] != null ? members[id] : Collections.emptyList();
+    }
+
+    SkyIndex skyIndex() {
+        SkyIndex index = skyIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = skyIndex;
+                if (index == null) {
+                    index = SkyIndex.build(stars);
+                    skyIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    // numeric attributes of all stars (row i = getStars().get(i)) used by range searches
+    ColumnarStarStore columns() {
+        return queryIndexes().columns;
+    }
+
+    // sorted indexes for range searches (one for every numeric attribute)
+    Map<StarAttribute, RangeIndex> rangeIndexes() {
+        return queryIndexes().rangeIndexes;
+    }
+
+    private QueryIndexes queryIndexes() {
+        QueryIndexes indexes = queryIndexes;
+        if (indexes == null) {
+            synchronized (this) {
+                indexes = queryIndexes;
+                if (indexes == null) {
+                    CatalogSnapshot older = indexedVersion;
+                    indexes = older == null ? buildQueryIndexes() : updateQueryIndexes(older);
+                    queryIndexes = indexes;
+                    indexedVersion = null; // the older version (and its indexes) can be collected
+                }
+            }
+        }
+        return indexes;
+    }
+
+    // latest version with built query indexes: this one, or the one this version's indexes will be made from
+    // (read before queryIndexes - it's cleared only after they're set)
+    private CatalogSnapshot latestIndexedVersion() {
+        CatalogSnapshot older = indexedVersion;
+        return queryIndexes != null ? this : older;
+    }
+
+    private QueryIndexes buildQueryIndexes() {
+        ColumnarStarStore columns = new ColumnarStarStore(size);
+        for (Star star : stars) {
+            columns.add(star);
+        }
+        Map<StarAttribute, RangeIndex> rangeIndexes = new EnumMap<>(StarAttribute.class);
+        for (StarAttribute attribute : StarAttribute.values()) {
+            RangeIndex index = new RangeIndex(attribute);
+            index.build(stars);
+            rangeIndexes.put(attribute, index);
+        }
+        return new QueryIndexes(columns, rangeIndexes);
+    }
+
+    // indexes made from the indexes of an older version: rows of constellations with the same member list
+    // are copied, sorted indexes get the stars that were added and removed since then
+    private QueryIndexes updateQueryIndexes(CatalogSnapshot older) {
+        QueryIndexes olderIndexes = older.queryIndexes;
+        ColumnarStarStore columns = new ColumnarStarStore(size);
+        List<Star> removed = new ArrayList<>();
+        List<Star> added = new ArrayList<>();
+        int olderRow = 0;
+        for (int id = 0; id < members.length; id++) {
+            List<Star> current = members(id);
+            List<Star> previous = older.members(id);
+            if (current == previous) {
+                columns.addRows(olderIndexes.columns, olderRow, current.size());
+            } else {
+                for (Star star : current) {
+                    columns.add(star);
+                }
+                // renamed stars are new objects, so they're removed in their old version and added in the new one
+                Set<Star> onlyCurrent = Collections.newSetFromMap(new IdentityHashMap<>());
+                onlyCurrent.addAll(current);
+                for (Star star : previous) {
+                    if (!onlyCurrent.remove(star)) {
+                        removed.add(star);
+                    }
+                }
+                added.addAll(onlyCurrent);
+            }
+            olderRow += previous.size();
+        }
+        Map<StarAttribute, RangeIndex> rangeIndexes = new EnumMap<>(StarAttribute.class);
+        for (Map.Entry<StarAttribute, RangeIndex> index : olderIndexes.rangeIndexes.entrySet()) {
+            rangeIndexes.put(index.getKey(), index.getValue().withChanges(removed, added));
+        }
+        return new QueryIndexes(columns, rangeIndexes);
+    }
+
+    // next version with added stars (member lists of their constellations are copied)
+    CatalogSnapshot withAdded(List<Star> added) {
+        List<Star>[] nextMembers = Arrays.copyOf(members, Math.max(members.length, ConstellationRegistry.size()));
+        StarNameIndex nextByName = starsByName.copy(added.size());
+        Map<Integer, List<Star>> changed = new HashMap<>();
+        for (Star star : added) {
+            nextByName.put(star);
+            changed.computeIfAbsent(star.getConstellationId(), id -> new ArrayList<>(members(id))).add(star);
+        }
+        for (Map.Entry<Integer, List<Star>> constellation : changed.entrySet()) {
+            nextMembers[constellation.getKey()] = sortedCopy(constellation.getValue());
+        }
+        return new CatalogSnapshot(version + 1, nextMembers, size + added.size(), nextByName, latestIndexedVersion());
+    }
+
+    // next version without a removed star, renamed stars (copies with new catalog names) replace the old ones
+    // (only the member list of its constellation is copied)
+    CatalogSnapshot withRemoved(Star removed, List<Star> renamed) {
+        List<Star> changed = new ArrayList<>(members(removed.getConstellationId()));
+        changed.remove(removed);
+        for (Star star : renamed) {
+            changed.set(star.getGreekOrdinal(), star);
+        }
+        List<Star>[] nextMembers = members.clone();
+        nextMembers[removed.getConstellationId()] = List.copyOf(changed);
+
+        StarNameIndex nextByName = starsByName.copy(0);
+        nextByName.remove(removed);
+        for (Star star : renamed) {
+            nextByName.put(star);
+        }
+        return new CatalogSnapshot(version + 1, nextMembers, size - 1, nextByName, latestIndexedVersion());
+    }
+
+    private static List<Star> sortedCopy(List<Star> stars) {
+        stars.sort(Comparator.comparingInt(Star::getGreekOrdinal));
+        return List.copyOf(stars);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Star>[] emptyMembers(int constellations) {
+        return (List<Star>[]) new List<?>[constellations];
+    }
+
+    // all stars of the snapshot as one list: members of the first constellation, then of the second one, ...
+    private final class AllStars extends AbstractList<Star> implements RandomAccess {
+        // ends[i] = number of stars in constellations 0..i
+        private final int[] ends = new int[members.length];
+
+        AllStars() {
+            int end = 0;
+            for (int id = 0; id < members.length; id++) {
+                end += members[id] == null ? 0 : members[id].size();
+                ends[id] = end;
+            }
+        }
+
+        @Override
+        public Star get(int index) {
+            Objects.checkIndex(index, size);
+            // first constellation that ends after the index (it can't be one without stars)
+            int low = 0;
+            int high = ends.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ends[middle] > index) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return members[low].get(index - (ends[low] - members[low].size()));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Star> iterator() {
+            return new Iterator<>() {
+                private int id = -1;
+                private Iterator<Star> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext()) {
+                        if (++id >= members.length) {
+                            return false;
+                        }
+                        current = members[id] == null ? Collections.emptyIterator() : members[id].iterator();
+                    }
+                    return true;
+                }
+
+                @Override
+                public Star next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+    }
+}
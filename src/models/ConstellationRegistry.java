@@ -0,0 +1,92 @@
+package src.models;
+
+import src.utils.GreekAlphabet;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Constellations known to the program, every one with a small id (0, 1, 2, ... in order of first use)
+/*
+    Stars keep only the id of their constellation (see Star), so there's one Constellation object per
+    constellation instead of one per star. Catalog names (greek letter + constellation name) aren't kept
+    by stars either - they're made from the id and the greek letter, once for every pair, and shared.
+    Ids are given only in this run of the program, they aren't saved (files keep constellation names).
+ */
+public final class ConstellationRegistry {
+
+    // ids have to fit in a short (Star.constellationId)
+    public static final int MAX_CONSTELLATIONS = Short.MAX_VALUE + 1;
+
+    private static final GreekAlphabet[] LETTERS = GreekAlphabet.values();
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // constellation with id i at index i (a new array is published for every new constellation)
+    private static volatile Constellation[] constellations = new Constellation[0];
+    // catalog names by id and greek letter, made on first use
+    private static volatile String[][] catalogNames = new String[0][];
+
+    private ConstellationRegistry() {
+    }
+
+    // id of a constellation (given to it on first use)
+    public static int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : register(name);
+    }
+
+    // id of a constellation that's already known, -1 if it isn't (no new id is given)
+    public static int find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    private static synchronized int register(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int next = constellations.length;
+        if (next == MAX_CONSTELLATIONS) {
+            throw new IllegalStateException("Limit of " + MAX_CONSTELLATIONS + " constellations has been reached");
+        }
+        Constellation[] nextConstellations = Arrays.copyOf(constellations, next + 1);
+        nextConstellations[next] = new Constellation(name);
+        String[][] nextCatalogNames = Arrays.copyOf(catalogNames, next + 1);
+        nextCatalogNames[next] = new String[LETTERS.length];
+        // arrays are published before the id, so a thread that sees the id finds its constellation
+        catalogNames = nextCatalogNames;
+        constellations = nextConstellations;
+        ids.put(name, next);
+        return next;
+    }
+
+    // shared Constellation object of a constellation name (instead of a new one for every star)
+    public static Constellation intern(String name) {
+        return get(idOf(name));
+    }
+
+    public static Constellation get(int id) {
+        return constellations[id];
+    }
+
+    public static String name(int id) {
+        return constellations[id].getName();
+    }
+
+    // catalog name of a star (e.g. "Beta Orion" for greek letter 1 of Orion)
+    public static String catalogName(int id, int greekOrdinal) {
+        String[] names = catalogNames[id];
+        String catalogName = names[greekOrdinal];
+        if (catalogName == null) {
+            // two threads can make the same name at once, both are equal so either can be kept
+            catalogName = LETTERS[greekOrdinal].name() + " " + name(id);
+            names[greekOrdinal] = catalogName;
+        }
+        return catalogName;
+    }
+
+    // number of constellations registered so far
+    public static int size() {
+        return constellations.length;
+    }
+}
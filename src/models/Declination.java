@@ -1,8 +1,13 @@
 package src.models;
 
+import src.utils.Hemisphere;
+
 import java.io.Serializable;
 
 public class Declination implements Serializable {
+   // same as computed for the class before toDegrees() was added, so old .obj files can still be read
+   private static final long serialVersionUID = -2775636660797216137L;
+
    private int xx;
    private int yy;
    private double zz;
@@ -43,6 +48,12 @@ public class Declination implements Serializable {
        return zz;
    }
 
+   // declination in decimal degrees (negative for the Southern Hemisphere, also when degrees are 0)
+   public double toDegrees(Hemisphere hemisphere) {
+       double degrees = Math.abs(xx) + yy / 60.0 + zz / 3600.0;
+       return hemisphere == Hemisphere.SOUTHERN ? -degrees : degrees;
+   }
+
    // toString()
    @Override
     public String toString() {
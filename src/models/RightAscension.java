@@ -3,6 +3,9 @@ package src.models;
 import java.io.Serializable;
 
 public class RightAscension implements Serializable {
+    // same as computed for the class before toDegrees() was added, so old .obj files can still be read
+    private static final long serialVersionUID = 7127034216636663976L;
+
     private int xx;
     private int yy;
     private double zz;
@@ -45,6 +48,11 @@ public class RightAscension implements Serializable {
     // didn't use setters in RightAscension/Declination classes bc Star coordinates change in 26000 years
     // due to precession; coordinates changes are insignificant
 
+    // right ascension in decimal degrees (1h = 15°)
+    public double toDegrees() {
+        return 15 * (xx + yy / 60.0 + zz / 3600.0);
+    }
+
     // toString()
     @Override
     public String toString() {
@@ -2,49 +2,171 @@ package src.models;
 import src.utils.GreekAlphabet;
 import src.utils.Hemisphere;
 
+import src.query.StarAttribute;
+import src.query.StarQuery;
+import src.io.StarExporter;
+import src.metrics.CatalogLoadEvent;
+import src.metrics.Metrics;
+import src.metrics.RemoveStarEvent;
+import src.metrics.StarSaveEvent;
+import src.storage.CatalogLoader;
+import src.storage.CatalogMigrator;
+import src.storage.CatalogStore;
+
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.lang.Math;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
-
-public class Star implements Serializable {
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Serializable only to read .obj files of older versions (see CatalogLoader) - stars are saved with
+// StarCodec (log entries) and PackedCatalog records, without Java serialization
+/*
+    A star is kept in primitive fields, without other objects (about 100 bytes per star, see StarFootprint):
+    - name (3 letters and 4 digits) is packed into an int, see packName()
+    - declination and right ascension are packed into ints (degrees/hours, minutes and seconds
+      in milliarcseconds), see packDeclination() and packRightAscension()
+    - constellation is the id of a shared Constellation in ConstellationRegistry
+    - catalog name isn't kept, it's made from the constellation and the greek letter (and shared by
+      all stars with the same catalog name, see ConstellationRegistry.catalogName)
+    Declination, RightAscension and Constellation objects are made only when they're asked for.
+ */
+public final class Star implements Serializable, StarRecord {
 
     private static final long serialVersionUID = 4747420996408461500L;
 
-    private String name;
-    private String catalogName;
+    // fields of a star in .obj files of older versions (read by readObject, written by writeObject)
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("catalogName", String.class),
+            new ObjectStreamField("hemisphere", Hemisphere.class),
+            new ObjectStreamField("declination", Declination.class),
+            new ObjectStreamField("rightAscension", RightAscension.class),
+            new ObjectStreamField("apparentMagnitude", double.class),
+            new ObjectStreamField("absoluteMagnitude", double.class),
+            new ObjectStreamField("distance", double.class),
+            new ObjectStreamField("constellation", Constellation.class),
+            new ObjectStreamField("temperature", double.class),
+            new ObjectStreamField("mass", double.class)
+    };
+
+    private static final GreekAlphabet[] GREEK_LETTERS = GreekAlphabet.values();
+
+    private int name; // see packName()
+    // greek letter of the catalog name as a number (0 = Alpha, 1 = Beta, ...)
+    // catalog name isn't changed after the star is added - a renamed star is a new Star (see renamed())
+    private byte greekOrdinal;
+    private short constellationId; // see ConstellationRegistry
     private Hemisphere hemisphere;
-    private Declination declination;
-    private RightAscension rightAscension;
+    private int declination; // see packDeclination()
+    private int rightAscension; // see packRightAscension()
     private double apparentMagnitude;
     private double absoluteMagnitude;
     private double distance; // in light years
-    private Constellation constellation;
     private double temperature;
     private double mass;
 
+    // unit vector computed once from declination/right ascension (not saved, computed again after loading)
+    // so angular distances are just dot products, without sin/cos on every call
+    private double x;
+    private double y;
+    private double z;
+
     // hashmap to store numbers of stars in a constellations
-    private static final Map<String, Integer> starsInAConstellation = new HashMap<>(); 
+    // (a constellation's number is read and changed only with its lock held, see StarRepository.constellationLock)
+    private static final Map<String, Integer> starsInAConstellation = new ConcurrentHashMap<>();
+
+    // folder with catalog files, can be changed with system property starmanager.data (e.g. by benchmarks)
+    private static final String DATA_FOLDER = System.getProperty("starmanager.data", "src/data");
+    // folder with stars saved by older versions (one .obj file per star)
+    private static final String STARS_FOLDER = DATA_FOLDER + "/stars/";
+    // file that contains all stars
+    static final Path CATALOG_FILE = Paths.get(DATA_FOLDER, "stars.cat");
+    // log of changes that aren't checkpointed into the catalog file yet
+    private static final Path CATALOG_LOG_FILE = Paths.get(DATA_FOLDER, "stars.wal");
+    private static CatalogStore catalogStore;
+
+    // Method: creating a new star - it gets the next greek letter of its constellation and is saved to the catalog
+    // (stars are made by static methods, so a constructor never hands out a half made star to StarRepository)
+    public static Star create(String name, Hemisphere hemisphere, Declination declination, RightAscension rightAscension,
+                              Constellation constellation, double apparentMagnitude, double distance,
+                              double temperature, double mass) {
+        Star star = validated(name, hemisphere, declination, rightAscension, constellation, apparentMagnitude, distance, temperature, mass);
+
+        // greek letter is taken and the star is added with the constellation's lock held,
+        // so two stars can't get the same letter and a removal can't renumber the constellation in between
+        ReentrantLock lock = StarRepository.constellationLock(constellation.getName());
+        lock.lock();
+        try {
+            star.greekOrdinal = (byte) createGreekOrdinal(constellation);
+            star.saveStar(); // after creating a star it will get saved to the catalog
+        } finally {
+            lock.unlock();
+        }
+        return star;
+    }
 
-    // catalog that will contain stars
-    private static final String STARS_FOLDER = "src/data/stars/";
+    // method that creates a star (with a new catalog name) without saving it - used by bulk import,
+    // which saves many stars at once with saveStars()
+    // the calling thread keeps holding the constellation's lock until the star is saved (or discardUnsaved() is called),
+    // so no star of the constellation can be removed and renumbered between giving out the letter and saving the star
+    public static Star createUnsaved(String name, Hemisphere hemisphere, Declination declination, RightAscension rightAscension,
+                                     Constellation constellation, double apparentMagnitude, double distance,
+                                     double temperature, double mass) {
+        Star star = validated(name, hemisphere, declination, rightAscension, constellation, apparentMagnitude, distance, temperature, mass);
+
+        ReentrantLock lock = StarRepository.constellationLock(constellation.getName());
+        lock.lock();
+        try {
+            star.greekOrdinal = (byte) createGreekOrdinal(constellation);
+            return star;
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    // new star with validated values, without a greek letter yet
+    private static Star validated(String name, Hemisphere hemisphere, Declination declination, RightAscension rightAscension,
+                                  Constellation constellation, double apparentMagnitude, double distance,
+                                  double temperature, double mass) {
+        validate(name, hemisphere, declination, rightAscension, constellation, apparentMagnitude, distance, temperature, mass);
+
+        // calculate values not provided by the caller
+        double absoluteMagnitude = calculateAbsoluteMagnitude(apparentMagnitude, distance);
+        Star star = new Star();
+        star.setValues(packName(name), 0, hemisphere, declination, rightAscension, constellation,
+                apparentMagnitude, absoluteMagnitude, distance, temperature, mass);
+        return star;
+    }
 
-    // Constructor - to update (exceptions)
-    public Star(String name, Hemisphere hemisphere, Declination declination, RightAscension rightAscension,
-                Constellation constellation, double apparentMagnitude, double distance,
-                double temperature, double mass) {
-        if (!name.matches("[A-Z]{3}[0-9]{4}")) {
+    // method that drops stars from createUnsaved() which won't be saved: their greek letters are given back
+    // and the constellation locks are released (nobody could take a letter after them, the locks were held)
+    public static void discardUnsaved(List<Star> stars)
+    {
+        for (int i = stars.size() - 1; i >= 0; i--) {
+            String constellationName = stars.get(i).getConstellation();
+            starsInAConstellation.merge(constellationName, -1, Integer::sum);
+            StarRepository.constellationLock(constellationName).unlock();
+        }
+    }
+
+    // Method: validating star's values (same rules for stars added in menu and imported from files)
+    public static void validate(String name, Hemisphere hemisphere, Declination declination, RightAscension rightAscension,
+                                Constellation constellation, double apparentMagnitude, double distance,
+                                double temperature, double mass) {
+        if (name == null || !name.matches("[A-Z]{3}[0-9]{4}")) {
             throw new IllegalArgumentException("Name must contain 3 uppercase letters and 4 digits");
         }
         // validate other required fields
@@ -61,9 +183,7 @@ public class Star implements Serializable {
             throw new IllegalArgumentException("Constellation cannot be null.");
         }
 
-        // assign hemisphere before validating declination
-        this.hemisphere = hemisphere;
-        validateDeclination(declination); // validate declination based on hemisphere
+        validateDeclination(declination, hemisphere); // validate declination based on hemisphere
 
         if (apparentMagnitude < -26.74 || apparentMagnitude > 15.00) {
             throw new IllegalArgumentException("Apparent magnitude must be between -26.74 and 15.00");
@@ -77,40 +197,214 @@ public class Star implements Serializable {
         if (mass < 0.1 || mass > 50) {
             throw new IllegalArgumentException("Mass must be min. 0.1 to max. 50 solar masses");
         }
+    }
+
+    // constructor of all stars, their values are set by the static methods that make them (create, restore, ...)
+    private Star() {
+    }
+
+    // method that rebuilds a star read from catalog file (no validation, no new catalog name, no saving)
+    public static Star restore(String name, int greekOrdinal, Hemisphere hemisphere, Declination declination,
+                               RightAscension rightAscension, Constellation constellation, double apparentMagnitude,
+                               double absoluteMagnitude, double distance, double temperature, double mass) {
+        int packedName = packName(name);
+        if (packedName < 0) {
+            throw new IllegalArgumentException("Star name must contain 3 uppercase letters and 4 digits: " + name);
+        }
+        if (greekOrdinal < 0 || greekOrdinal >= GREEK_LETTERS.length) {
+            throw new IllegalArgumentException("Greek letter must be between 0 and " + (GREEK_LETTERS.length - 1) + ": " + greekOrdinal);
+        }
+        Star star = new Star();
+        star.setValues(packedName, greekOrdinal, hemisphere, declination, rightAscension, constellation,
+                apparentMagnitude, absoluteMagnitude, distance, temperature, mass);
+        return star;
+    }
 
-        this.name = name;
-        this.declination = declination;
-        this.rightAscension = rightAscension;
-        this.constellation = constellation;
+    private void setValues(int packedName, int greekOrdinal, Hemisphere hemisphere, Declination declination,
+                           RightAscension rightAscension, Constellation constellation, double apparentMagnitude,
+                           double absoluteMagnitude, double distance, double temperature, double mass) {
+        this.name = packedName;
+        this.greekOrdinal = (byte) greekOrdinal;
+        this.constellationId = (short) ConstellationRegistry.idOf(constellation.getName());
+        this.hemisphere = hemisphere;
+        this.declination = packDeclination(declination);
+        this.rightAscension = packRightAscension(rightAscension);
         this.apparentMagnitude = apparentMagnitude;
+        this.absoluteMagnitude = absoluteMagnitude;
         this.distance = distance;
         this.temperature = temperature;
         this.mass = mass;
+        cacheCoordinates();
+    }
 
-        // calculate values not provided in constructor
-        this.catalogName = createCatalogName(constellation);
-        this.absoluteMagnitude = calculateAbsoluteMagnitude(apparentMagnitude, distance);
+    // copy of the star with another greek letter (used when its constellation is renumbered),
+    // readers of older catalog snapshots keep seeing the star with its old catalog name
+    private Star renamed(int newGreekOrdinal) {
+        Star star = new Star();
+        star.name = name;
+        star.greekOrdinal = (byte) newGreekOrdinal;
+        star.constellationId = constellationId;
+        star.hemisphere = hemisphere;
+        star.declination = declination;
+        star.rightAscension = rightAscension;
+        star.apparentMagnitude = apparentMagnitude;
+        star.absoluteMagnitude = absoluteMagnitude;
+        star.distance = distance;
+        star.temperature = temperature;
+        star.mass = mass;
+        star.x = x;
+        star.y = y;
+        star.z = z;
+        return star;
+    }
 
-        saveStar(); // after creating a star it will get saved to the catalog
+    // stars from old .obj files - fields of the old format are packed again
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        String name = (String) fields.get("name", null);
+        String catalogName = (String) fields.get("catalogName", null);
+        Hemisphere hemisphere = (Hemisphere) fields.get("hemisphere", null);
+        Declination declination = (Declination) fields.get("declination", null);
+        RightAscension rightAscension = (RightAscension) fields.get("rightAscension", null);
+        Constellation constellation = (Constellation) fields.get("constellation", null);
+        if (name == null || catalogName == null || hemisphere == null || declination == null
+                || rightAscension == null || constellation == null || packName(name) < 0) {
+            throw new InvalidObjectException("Broken star: " + name);
+        }
+        try {
+            setValues(packName(name), greekOrdinalOf(catalogName), hemisphere, declination, rightAscension, constellation,
+                    fields.get("apparentMagnitude", 0.0), fields.get("absoluteMagnitude", 0.0), fields.get("distance", 0.0),
+                    fields.get("temperature", 0.0), fields.get("mass", 0.0));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidObjectException("Broken star " + name + ": " + e.getMessage());
+        }
+    }
+
+    // stars are written in the old format, so they can be read by older versions too
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("name", getName());
+        fields.put("catalogName", getCatalogName());
+        fields.put("hemisphere", hemisphere);
+        fields.put("declination", getDeclination2());
+        fields.put("rightAscension", getRightAscension2());
+        fields.put("apparentMagnitude", apparentMagnitude);
+        fields.put("absoluteMagnitude", absoluteMagnitude);
+        fields.put("distance", distance);
+        fields.put("constellation", getConstellation2());
+        fields.put("temperature", temperature);
+        fields.put("mass", mass);
+        out.writeFields();
+    }
+
+    // method that computes the unit vector of the star
+    private void cacheCoordinates() {
+        double raRadians = getRaRadians();
+        double decRadians = getDecRadians();
+        double cosDec = Math.cos(decRadians);
+        x = cosDec * Math.cos(raRadians);
+        y = cosDec * Math.sin(raRadians);
+        z = Math.sin(decRadians);
+    }
+
+    // PACKED VALUES
+
+    // name (3 letters and 4 digits) as a number, in the same order as the names (AAA0000 = 0, AAA0001 = 1, ...),
+    // -1 if it isn't a name of this form
+    public static int packName(String name) {
+        if (name == null || name.length() != 7) {
+            return -1;
+        }
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            char letter = name.charAt(i);
+            if (letter < 'A' || letter > 'Z') {
+                return -1;
+            }
+            packed = packed * 26 + (letter - 'A');
+        }
+        for (int i = 3; i < 7; i++) {
+            char digit = name.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            packed = packed * 10 + (digit - '0');
+        }
+        return packed;
+    }
+
+    public static String unpackName(int packed) {
+        char[] name = new char[7];
+        for (int i = 6; i >= 3; i--) {
+            name[i] = (char) ('0' + packed % 10);
+            packed /= 10;
+        }
+        for (int i = 2; i >= 0; i--) {
+            name[i] = (char) ('A' + packed % 26);
+            packed /= 26;
+        }
+        return new String(name);
+    }
+
+    // declination as degrees << 22 | minutes << 16 | seconds in milliarcseconds (seconds are kept
+    // with 0.001'' precision, 59.9996'' is kept as 59.999'' so the seconds stay below 60)
+    private static int packDeclination(Declination declination) {
+        int milliseconds = (int) Math.min(Math.round(declination.getZZ() * 1000), 59_999);
+        return declination.getXX() << 22 | declination.getYY() << 16 | milliseconds;
+    }
+
+    // right ascension as hours << 26 | minutes << 20 | seconds in milliarcseconds
+    // (1 second of time = 15'' = 15000 milliarcseconds, so seconds are kept with 1/15000 s precision)
+    private static int packRightAscension(RightAscension rightAscension) {
+        int milliarcseconds = (int) Math.min(Math.round(rightAscension.getZZ() * 15_000), 899_999);
+        return rightAscension.getXX() << 26 | rightAscension.getYY() << 20 | milliarcseconds;
     }
 
 
     // GETTERS:
     // Name
     public String getName() {
+        return unpackName(name);
+    }
+    // Name as a number (see packName)
+    public int getPackedName() {
         return name;
     }
     // Catalog Name
     public String getCatalogName() {
-        return catalogName;
+        return ConstellationRegistry.catalogName(constellationId, greekOrdinal);
+    }
+    // Greek letter of catalog name (0 = Alpha, 1 = Beta, ...)
+    public int getGreekOrdinal() {
+        return greekOrdinal;
     }
     // Declination
     public String getDeclination() {
-        return declination.toString();
+        return getDeclination2().toString();
+    }
+    // Declination parts
+    public int getDeclinationDegrees() {
+        return declination >> 22;
+    }
+    public int getDeclinationMinutes() {
+        return (declination >> 16) & 0x3F;
+    }
+    public double getDeclinationSeconds() {
+        return (declination & 0xFFFF) / 1000.0;
     }
     // Right Ascension
     public String getRightAscension() {
-        return rightAscension.toString();
+        return getRightAscension2().toString();
+    }
+    // Right Ascension parts
+    public int getRightAscensionHours() {
+        return rightAscension >>> 26;
+    }
+    public int getRightAscensionMinutes() {
+        return (rightAscension >>> 20) & 0x3F;
+    }
+    public double getRightAscensionSeconds() {
+        return (rightAscension & 0xFFFFF) / 15_000.0;
     }
     // Apparent Magnitude
     public double getApparentMagnitude() {
@@ -126,12 +420,56 @@ public class Star implements Serializable {
     }
     // Constellation
     public String getConstellation() {
-        return constellation.getName();
+        return ConstellationRegistry.name(constellationId);
+    }
+    // Constellation id (see ConstellationRegistry)
+    int getConstellationId() {
+        return constellationId;
     }
 
     // for updateCatalog() method
     public Constellation getConstellation2() {
-        return constellation;
+        return ConstellationRegistry.get(constellationId);
+    }
+
+    // declination/right ascension as objects (made on every call)
+    public Declination getDeclination2() {
+        return new Declination(getDeclinationDegrees(), getDeclinationMinutes(), getDeclinationSeconds());
+    }
+
+    public RightAscension getRightAscension2() {
+        return new RightAscension(getRightAscensionHours(), getRightAscensionMinutes(), getRightAscensionSeconds());
+    }
+
+    // Right ascension/declination in decimal degrees and radians (same as RightAscension/Declination.toDegrees)
+    public double getRaDegrees() {
+        return 15 * (getRightAscensionHours() + getRightAscensionMinutes() / 60.0 + getRightAscensionSeconds() / 3600.0);
+    }
+
+    public double getDecDegrees() {
+        double degrees = Math.abs(getDeclinationDegrees()) + getDeclinationMinutes() / 60.0 + getDeclinationSeconds() / 3600.0;
+        return hemisphere == Hemisphere.SOUTHERN ? -degrees : degrees;
+    }
+
+    public double getRaRadians() {
+        return Math.toRadians(getRaDegrees());
+    }
+
+    public double getDecRadians() {
+        return Math.toRadians(getDecDegrees());
+    }
+
+    // Unit vector pointing at the star (x towards 0h on the equator, z towards the north celestial pole)
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
     }
 
     // Hemisphere
@@ -149,7 +487,7 @@ public class Star implements Serializable {
 
 
     // Method for validating declination based on hemisphere
-    private void validateDeclination(Declination declination) {
+    private static void validateDeclination(Declination declination, Hemisphere hemisphere) {
         int degrees = declination.getXX();
 
         if (hemisphere == Hemisphere.NORTHERN) {
@@ -169,7 +507,7 @@ public class Star implements Serializable {
 
 
     // Method: Calculate Absolute Magnitude
-    public double calculateAbsoluteMagnitude(double apparentMagnitude, double distance) {
+    public static double calculateAbsoluteMagnitude(double apparentMagnitude, double distance) {
         if (distance <= 0) {
             throw new IllegalArgumentException("Distance must be greater than 0");
         }
@@ -180,7 +518,14 @@ public class Star implements Serializable {
         return apparentMagnitude - 5 * Math.log10(distanceInParsecs) + 5;
     }
 
-    // method that creates star's catalog name based on it's constellation (used in constructor)
+    // Method: Angular distance to another star (in degrees)
+    public double angularSeparation(Star other) {
+        double dot = x * other.x + y * other.y + z * other.z;
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, dot))));
+    }
+
+    // method that gives a new star the next greek letter of its constellation (used by create/createUnsaved),
+    // the catalog name is made from it (see getCatalogName)
     /*
         nazwa katalogowa – nazwa katalogowa składa się litery alfabetu
         greckiego oraz nazwy gwiazdozbioru. Najjaśniejsza gwiazda w
@@ -189,56 +534,167 @@ public class Star implements Serializable {
         nadawane są gwiazdom w takiej kolejności, w jakiej dodane zostały
         do gwiazdozbioru. np gamma Wolarza
      */
-    private String createCatalogName(Constellation constellation)
+    private static int createGreekOrdinal(Constellation constellation)
     {
         int count = starsInAConstellation.getOrDefault(constellation.getName(), 0);  
 
-        if (count >= GreekAlphabet.values().length)
+        if (count >= GREEK_LETTERS.length)
         {
             throw new IllegalStateException("Limit of stars in a constellation has been reached!");
             //since theres 24? letters in greek alphabet there cant be more stars names after that
         }
-        String greekLetter = GreekAlphabet.values()[count].name();
         starsInAConstellation.put(constellation.getName(), count + 1);
-        return greekLetter + " " + constellation.getName();
+        return count;
     }
 
-    // method that loads ALL created stars (and returns it as a list)
-    public static List<Star> loadStarsFromFile()
+    // greek letter number taken from catalog name (e.g. "Beta Orion" -> 1)
+    private static int greekOrdinalOf(String catalogName)
     {
-        List<Star> allStars = new ArrayList<>();
-        File directory = new File(STARS_FOLDER);
+        return GreekAlphabet.valueOf(catalogName.split(" ")[0]).ordinal();
+    }
+
+    // method that loads ALL created stars from disk, together with numbers of stars in every constellation
+    // used by StarRepository at startup, everything else should read from StarRepository
+    public static CatalogLoader.Result loadCatalogFile()
+    {
+        // stars saved by older versions (one .obj file per star) are moved to the catalog file once
+        if (!Files.exists(CATALOG_FILE)) {
+            migrateObjFiles();
+        }
+        if (!Files.exists(CATALOG_FILE)) {
+            return CatalogLoader.Result.EMPTY; // there's no catalog yet
+        }
 
+        long start = System.nanoTime();
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+        try {
+            CatalogLoader.Result loaded = catalog().load();
+            Metrics.CATALOG_LOAD.recordSince(start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.source = CATALOG_FILE.toString();
+                event.stars = loaded.getStars().size();
+                event.failures = loaded.getErrors().size();
+                event.bytes = Files.size(CATALOG_FILE);
+                event.commit();
+            }
+            loaded.printErrors(CATALOG_FILE.toString());
+            return loaded;
+        } catch (IOException e) {
+            Metrics.ERRORS.increment();
+            System.err.println("Error loading stars from catalog file: " + CATALOG_FILE);
+            e.printStackTrace();
+            return CatalogLoader.Result.EMPTY;
+        }
+    }
+
+    // method that loads stars saved in the old format (one .obj file per star), files are read in parallel
+    public static List<Star> loadStarsFromObjFiles(File directory)
+    {
         // check if directory exists
         if (!directory.exists() || !directory.isDirectory()) {
-           // System.err.println("Star directory not found: " + STARS_FOLDER);
-            return allStars; // returns empty list if dir doesn't exist
+            return new ArrayList<>(); // returns empty list if dir doesn't exist
         }
 
+        long start = System.nanoTime();
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+        CatalogLoader.Result loaded = CatalogLoader.loadObjFiles(directory);
+        Metrics.CATALOG_LOAD.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = directory.toString();
+            event.stars = loaded.getStars().size();
+            event.failures = loaded.getErrors().size();
+            event.commit();
+        }
+        loaded.printErrors(directory.toString());
+        return loaded.getStars();
+    }
+
+    // method that moves stars from old .obj files to the catalog file (only if there are any)
+    private static void migrateObjFiles()
+    {
+        File directory = new File(STARS_FOLDER);
         File[] files = directory.listFiles((dir, name) -> name.endsWith(".obj"));
-        if (files == null) {
-            System.out.println("No stars found in directory: " + STARS_FOLDER);
-            return allStars;
-        }
-
-        // load stars from files
-        for (File file : files) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                Star star = (Star) ois.readObject();
-                allStars.add(star);
-            } catch (IOException | ClassNotFoundException e) {
-                System.err.println("Error loading stars from file: " + file.getName());
-                e.printStackTrace();
-            } catch (Exception e) {
-                System.err.println("Unexpected error: " + e.getMessage());
-                e.printStackTrace();
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        try {
+            int migrated = CatalogMigrator.migrate(directory, CATALOG_FILE);
+            System.out.println("Moved " + migrated + " stars from " + STARS_FOLDER + " to catalog file " + CATALOG_FILE
+                    + " (old .obj files can be deleted)");
+        } catch (IOException e) {
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Couldn't move stars from " + STARS_FOLDER + " to catalog file " + CATALOG_FILE);
+            e.printStackTrace();
+        }
+    }
+
+    // method that makes sure the catalog file exists (moves old .obj files to it if there are any)
+    static void createCatalogFileIfMissing() throws IOException
+    {
+        if (!Files.exists(CATALOG_FILE)) {
+            migrateObjFiles();
+        }
+        catalog();
+    }
+
+    // same, but the catalog file is opened (which reads names of all its stars into memory) only when it has to be
+    // created or changes left in the log have to be replayed into it - otherwise the first change opens it
+    // (used in off-heap mode, where nothing proportional to the catalog should be kept on the heap while reading)
+    static void prepareCatalogFile() throws IOException
+    {
+        if (!Files.exists(CATALOG_FILE)) {
+            migrateObjFiles();
+        }
+        if (!Files.exists(CATALOG_FILE) || (Files.exists(CATALOG_LOG_FILE) && Files.size(CATALOG_LOG_FILE) > 0)) {
+            catalog();
+        }
+    }
+
+    // catalog file is opened once and kept open (it's closed when the program ends)
+    private static CatalogStore catalog() throws IOException
+    {
+        if (catalogStore == null) {
+            catalogStore = CatalogStore.open(CATALOG_FILE, CATALOG_LOG_FILE);
+            Runtime.getRuntime().addShutdownHook(new Thread(Star::closeCatalog));
+        }
+        return catalogStore;
+    }
+
+    // method that writes changes waiting in the current batch to the catalog file (used before reading the file directly)
+    static void commitCatalog()
+    {
+        try {
+            if (catalogStore != null) {
+                catalogStore.commit();
             }
+        } catch (IOException e) {
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Couldn't commit changes to catalog file: " + CATALOG_FILE);
+            e.printStackTrace();
         }
+    }
 
-        return allStars;
+    // method that saves all changes to the catalog file and closes it
+    public static void closeCatalog()
+    {
+        try {
+            if (catalogStore != null) {
+                catalogStore.close();
+            }
+        } catch (IOException e) {
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Couldn't close catalog file: " + CATALOG_FILE);
+            e.printStackTrace();
+        }
     }
 
     // method that updates stars names +numbers of stars in a constellation after a star was deleted
+    // (called with the constellation's lock held)
     /*
      W przypadku usunięcia np. gwiazdy beta w danym gwiazdozbiorze, należy
      zadbać, o to, aby wszystkie pozostałe nazwy katalogowe zostały
@@ -246,157 +702,211 @@ public class Star implements Serializable {
      gwiazdy w gwiazdozbiorze są aktualizowane, tj. beta Ryb na alfa Ryb,
      gamma Ryb na beta Ryb i tak dalej.
      */
-    private static void updateCatalog(Constellation constellation)
+    // (renamed stars were saved to the catalog file together with the removal, see removeStar)
+    private static void updateCatalog(Constellation constellation, List<Star> renamedStars)
     {
-        List<Star> stars = loadStarsFromFile();
-        // load all stars from specific constellation4
-        List<Star> starsInConstellation = new ArrayList<>();
-
-        for (Star star : stars) {
-            if (star.getConstellation2().equals(constellation)) {
-                starsInConstellation.add(star);
-               // System.out.println("Added star: " + star.getCatalogName()); // for debugging
-            }
-        }
-
-        // sorted stars
-        try {
-        starsInConstellation.sort(Comparator.comparingInt(star -> 
-        Arrays.asList(GreekAlphabet.values()).indexOf(
-            GreekAlphabet.valueOf(star.catalogName.split(" ")[0]))
-            ));
-        // updated names
-        } catch (IllegalArgumentException e) {
-        System.err.println("Error during sorting the stars: " + e.getMessage());
-        return;
+        long start = System.nanoTime();
+        for (Star updatedStar : renamedStars)
+        {
+            System.out.println("Updated catalog name of " + updatedStar.getName() + " to: " 
+            + updatedStar.getCatalogName()); 
         }
+        starsInAConstellation.put(constellation.getName(), StarRepository.getConstellationMembers(constellation.getName()).size());
+        Metrics.CATALOG_UPDATE.recordSince(start);
+    }
 
-        for (int i = 0; i < starsInConstellation.size(); i++) 
+    // new versions of stars that get another greek letter when a star of their constellation is removed
+    private static List<Star> renumberConstellation(Star removedStar)
+    {
+        // stars of the constellation ordered by their greek letters (position in the list = new greek letter)
+        List<Star> starsInConstellation = StarRepository.getConstellationMembers(removedStar.getConstellation());
+        List<Star> renamedStars = new ArrayList<>();
+        int greekOrdinal = 0;
+        for (Star star : starsInConstellation)
         {
-            Star updatedStar = starsInConstellation.get(i);
-            updatedStar.catalogName = GreekAlphabet.values()[i].name() + " " + constellation.getName();
-            try {
-                saveStarToFile(updatedStar);
-            } catch (Exception e) {
-                System.err.println("Error saving updated star: " + updatedStar.getCatalogName());
-                e.printStackTrace();
-            }  
-            System.out.println("Updated catalog name of " + updatedStar.getName() + " to: " 
-            + updatedStar.catalogName); 
+            if (star.name == removedStar.name) {
+                continue;
+            }
+            if (star.greekOrdinal != greekOrdinal) { // stars before the removed one keep their names (and don't have to be saved)
+                renamedStars.add(star.renamed(greekOrdinal));
+            }
+            greekOrdinal++;
         }
-        starsInAConstellation.put(constellation.getName(), starsInConstellation.size());
+        return renamedStars;
     }
 
     // method that helps with updating catalog
-    // Method: Saving added star to file
+    // Method: Saving added star to file (updates its record if the star is already in the catalog file)
     public static void saveStarToFile(Star star)
     {
-        String filePath = STARS_FOLDER + star.getName() + ".obj";
-
-        // check if directory exists, otherwise -> create one
-        File directory = new File(STARS_FOLDER);
-        if (!directory.exists()) {
-            if (directory.mkdirs()) // creating folders if they dont exist
-            {  System.out.println("Directory created: " + STARS_FOLDER); }
-            else
-            {     
-                System.err.println("Error: Could not create directory " + STARS_FOLDER);
+        long start = System.nanoTime();
+        StarSaveEvent event = new StarSaveEvent();
+        event.begin();
+        try {
+            catalog().put(star);
+            Metrics.STAR_SAVE.recordSince(start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.star = star.getName();
+                event.constellation = star.getConstellation();
+                event.stars = 1;
+                event.commit();
             }
         }
-
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filePath))) 
-        {
-            oos.writeObject(star);
-            //System.out.println("Star saved to: " + filePath); // for debugging
-        }
-        catch (IOException e) 
+        catch (IOException e)
         {
-            System.err.println("Error: Couldn't save star to file: " + filePath);
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Couldn't save star " + star.getName() + " to catalog file: " + CATALOG_FILE);
             e.printStackTrace();
         }
     }
 
-    private static void saveStarsToFile(List<Star> stars) {
-        // This function will save the updated list of stars to the file
-        for (Star star : stars) {
-            saveStarToFile(star);  // Re-save each star from the updated list
-        }
-    }
-
-    // method that saves a created star (used in constructor)
+    // method that saves a created star (used by create)
     private void saveStar()
     {
-        List<Star> stars = loadStarsFromFile();
-        stars.add(this);
+        StarRepository.add(this);
         saveStarToFile(this);
     }
 
-    // method that deletes a star BASED ON CHOSEN CATALOG NAME
-    public static void removeStar(String name)
+    // method that checks that the catalog file can store stars of a constellation (used by bulk import before creating stars)
+    public static void addConstellationToCatalog(Constellation constellation) throws IOException
     {
-        List<Star> stars = loadStarsFromFile();
-        Star starToRemove = null;
+        catalog().addConstellation(constellation.getName());
+    }
 
-        // finding star to remove
-        for (Star star : stars) {
-            if (star.getCatalogName().equalsIgnoreCase(name)) {
-                starToRemove = star;
-                break;
+    // method that saves many created stars at once (used by bulk import with stars from createUnsaved() of the same thread),
+    // releases the constellation locks taken by createUnsaved() once the stars are saved
+    public static void saveStars(List<Star> stars)
+    {
+        try {
+            StarRepository.addAll(stars);
+            StarSaveEvent event = new StarSaveEvent();
+            event.begin();
+            catalog().putAll(stars);
+            event.end();
+            if (event.shouldCommit()) {
+                event.stars = stars.size();
+                event.commit();
             }
         }
+        catch (IOException e)
+        {
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Couldn't save " + stars.size() + " stars to catalog file: " + CATALOG_FILE);
+            e.printStackTrace();
+        }
+        finally {
+            for (Star star : stars) {
+                StarRepository.constellationLock(star.getConstellation()).unlock();
+            }
+        }
+    }
 
-        // if star exists, remove it
-        if (starToRemove != null) {
-            stars.remove(starToRemove);
-
-            // delete file associated with the star
-            String filePath = STARS_FOLDER + starToRemove.getName() + ".obj";
-            File file = new File(filePath);
+    // method that deletes a star BASED ON CHOSEN CATALOG NAME
+    public static void removeStar(String name)
+    {
+        while (true) {
+            // finding star to remove
+            Star starToRemove = StarRepository.findByCatalogName(name);
+            if (starToRemove == null) {
+                System.out.println("Error: Star not found in catalog.");
+                return;
+            }
 
+            // removing and renumbering is done with the constellation's lock held
+            ReentrantLock lock = StarRepository.constellationLock(starToRemove.getConstellation());
+            lock.lock();
             try {
-                if (file.exists() && file.delete()) 
-                {
-                    System.out.println("Star file deleted: " + filePath);
-                } 
-                else
-                {
-                    throw new IOException("Failed to delete file: " + filePath);
+                if (!isSameStar(StarRepository.findByCatalogName(name), starToRemove)) {
+                    continue; // the star was removed or renamed by another thread before we got the lock, look again
                 }
-            } catch (IOException e) {
-            System.err.println("Error: Could not delete file " + filePath);
-            e.printStackTrace();
+                removeStar(starToRemove);
+                return;
+            } finally {
+                lock.unlock();
             }
-
-            saveStarsToFile(stars);
-            Constellation constellation = starToRemove.getConstellation2();
-            // updating number of stars in a constellation (starsInConstellation map)
-            starsInAConstellation.put(constellation.getName(), stars.size());     
-            // updating names of all stars in a constellation
-            updateCatalog(constellation);
-            System.out.println("Star has been removed from catalog.");
         }
+    }
 
-        else {
-            System.out.println("Error: Star not found in catalog.");
+    // same star with the same catalog name (stars of an off-heap catalog are new objects on every lookup)
+    private static boolean isSameStar(Star found, Star star)
+    {
+        return found != null && found.name == star.name && found.greekOrdinal == star.greekOrdinal
+                && found.constellationId == star.constellationId;
+    }
+
+    // method that deletes a found star (called with its constellation's lock held)
+    private static void removeStar(Star starToRemove)
+    {
+        long start = System.nanoTime();
+        RemoveStarEvent event = new RemoveStarEvent();
+        event.begin();
+        // removing the star and renaming the rest of its constellation is published as one change of the catalog
+        List<Star> renamedStars = renumberConstellation(starToRemove);
+        StarRepository.remove(starToRemove, renamedStars);
+
+        // delete star's record from catalog file and save renamed stars of its constellation (one commit of the log)
+        try {
+            catalog().delete(starToRemove.getName(), renamedStars);
+            System.out.println("Star deleted from catalog file: " + CATALOG_FILE);
+        } catch (IOException e) {
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Could not delete star " + starToRemove.getName() + " from " + CATALOG_FILE);
+            e.printStackTrace();
         }
 
+        Constellation constellation = starToRemove.getConstellation2();
+        // updating names of stars in a constellation (+ number of stars in starsInConstellation map)
+        // only stars of this constellation are saved again
+        updateCatalog(constellation, renamedStars);
+        Metrics.STAR_REMOVE.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.star = starToRemove.getName();
+            event.catalogName = starToRemove.getCatalogName();
+            event.constellation = starToRemove.getConstellation();
+            event.renamedStars = renamedStars.size();
+            event.commit();
+        }
+        System.out.println("Star has been removed from catalog.");
     }
 
     // METHODS FOR SEARCHING STARS BASED ON CRITERIAS
 
+    // mass of a white dwarf above which it can explode as a supernova (in solar masses)
+    public static final double CHANDRASEKHAR_LIMIT = 1.44;
+
+    // stars whose distance in parsecs rounded to 2 places is distanceInput (used by the menu and the HTTP server)
+    public static List<Star> findStarsAtDistance(double distanceInput) {
+        long start = System.nanoTime();
+        // stars that are close to given distance, exact (rounded) distance is checked below
+        List<Star> stars = StarQuery.stars()
+                .between(StarAttribute.DISTANCE, (distanceInput - 0.01) / 0.3066013938, (distanceInput + 0.01) / 0.3066013938)
+                .orderBy(StarAttribute.DISTANCE)
+                .list();
+        List<Star> found = new ArrayList<>();
+        for (Star star : stars) {
+            if (roundedParsecs(star) == distanceInput) {
+                found.add(star);
+            }
+        }
+        Metrics.SEARCH_DISTANCE.recordSince(start);
+        return found;
+    }
+
+    private static double roundedParsecs(Star star) {
+        double distanceInParsecs = star.getDistance() * 0.3066013938; // convert light years to parsecs
+        return Math.round(distanceInParsecs * 100.00)/100.00; // rounding up to 2 places
+    }
+
     // Method that finds stars in x parsecs distance from Earth
     public static void findStarByDistance(double distanceInput) {
-        List<Star> stars = loadStarsFromFile();
         boolean foundStars = false;
 
         try {
-            for (Star star: stars) {
-                double distanceInParsecs = star.getDistance() * 0.3066013938; // convert light years to parsecs
-                double roundedDistance = Math.round(distanceInParsecs * 100.00)/100.00; // rounding up to 2 places
-                if (roundedDistance == distanceInput) {
-                    foundStars = true;
-                    System.out.println("* Star Name: " + star.getName() + ";" + " Rounded Star distance in parsecs: " + roundedDistance + ";" + " Precise Star distance in parsecs: " + distanceInParsecs);
-                }
+            for (Star star: findStarsAtDistance(distanceInput)) {
+                foundStars = true;
+                System.out.println("* Star Name: " + star.getName() + ";" + " Rounded Star distance in parsecs: " + roundedParsecs(star) + ";" + " Precise Star distance in parsecs: " + star.getDistance() * 0.3066013938);
             }
             if (!foundStars) {
                 System.out.println("No stars found in this distance ;(");
@@ -410,17 +920,64 @@ public class Star implements Serializable {
         }
     }
 
+    // stars with temperature in an interval, ordered by temperature (used by the menu and the HTTP server)
+    public static List<Star> findStarsByTemperature(double intervalStart, double intervalEnd) {
+        long start = System.nanoTime();
+        List<Star> stars = StarQuery.stars()
+                .between(StarAttribute.TEMPERATURE, intervalStart, intervalEnd)
+                .orderBy(StarAttribute.TEMPERATURE)
+                .list();
+        Metrics.SEARCH_TEMPERATURE.recordSince(start);
+        return stars;
+    }
+
+    // stars with absolute magnitude in an interval, ordered by absolute magnitude
+    public static List<Star> findStarsByMagnitude(double intervalStart, double intervalEnd) {
+        long start = System.nanoTime();
+        List<Star> stars = StarQuery.stars()
+                .between(StarAttribute.ABSOLUTE_MAGNITUDE, intervalStart, intervalEnd)
+                .orderBy(StarAttribute.ABSOLUTE_MAGNITUDE)
+                .list();
+        Metrics.SEARCH_MAGNITUDE.recordSince(start);
+        return stars;
+    }
+
+    // stars of a hemisphere
+    public static List<Star> findStarsInHemisphere(Hemisphere hemisphere) {
+        long start = System.nanoTime();
+        List<Star> stars = StarQuery.stars().inHemisphere(hemisphere).list();
+        Metrics.SEARCH_HEMISPHERE.recordSince(start);
+        return stars;
+    }
+
+    // potential supernovas: stars with mass above the Chandrasekhar limit, ordered by mass
+    public static List<Star> findSupernovaStars() {
+        long start = System.nanoTime();
+        List<Star> stars = StarQuery.stars()
+                .above(StarAttribute.MASS, CHANDRASEKHAR_LIMIT)
+                .orderBy(StarAttribute.MASS)
+                .list();
+        Metrics.SEARCH_SUPERNOVAS.recordSince(start);
+        return stars;
+    }
+
+    // stars of a constellation (name is case insensitive) ordered by greek letter
+    public static List<Star> findStarsInConstellation(String constellationName) {
+        long start = System.nanoTime();
+        List<Star> stars = StarRepository.getConstellationMembersIgnoreCase(constellationName.trim());
+        Metrics.SEARCH_CONSTELLATION.recordSince(start);
+        return stars;
+    }
+
     // Method that finds stars based on temperature (in chosen interval)
     public static void findStarByTemperature(double intervalStart, double intervalEnd) {
-        List<Star> stars = loadStarsFromFile();
+        List<Star> stars = findStarsByTemperature(intervalStart, intervalEnd);
         boolean foundStars = false;
 
         try {
             for (Star star: stars) {
-                if (star.temperature >= intervalStart && star.temperature <= intervalEnd) {
-                    System.out.println("* Star Name: " + star.getName() + ";" + " Star temperature: " + star.getTemperature() + "°C");
-                    foundStars = true;
-                }
+                System.out.println("* Star Name: " + star.getName() + ";" + " Star temperature: " + star.getTemperature() + "°C");
+                foundStars = true;
             }
             if (!foundStars) {
                 System.out.println("No stars found in this temperature interval ;(");
@@ -436,14 +993,12 @@ public class Star implements Serializable {
 
     // Method that finds stars based on absolute magnitude (in chosen interval)
     public static void findStarByMagnitude(double intervalStart, double intervalEnd) {
-        List<Star> stars = loadStarsFromFile();
+        List<Star> stars = findStarsByMagnitude(intervalStart, intervalEnd);
         boolean foundStars = false;
         try {
             for (Star star: stars) {
-                if (star.getAbsoluteMagnitude() >= intervalStart && star.getAbsoluteMagnitude() <= intervalEnd) {
-                    System.out.println("* Star Name: " + star.getName() + ";" + " Absolute magnitude: " + star.getAbsoluteMagnitude());
-                    foundStars = true;
-                }
+                System.out.println("* Star Name: " + star.getName() + ";" + " Absolute magnitude: " + star.getAbsoluteMagnitude());
+                foundStars = true;
             }
             if (!foundStars) {
                 System.out.println("No stars found in this absolute magnitude interval ;(");
@@ -458,17 +1013,14 @@ public class Star implements Serializable {
     }
     // Method that finds stars based on hemisphere
     public static void findStarByHemisphere(String hemisphereName) {
-        List<Star> stars = loadStarsFromFile();
         boolean foundStars = false;
 
         try {
             Hemisphere hemisphere = Hemisphere.fromString(hemisphereName);
 
-            for (Star star : stars) {
-                if (star.getHemisphere() == hemisphere) {
-                    System.out.println("* Star Name: " + star.getName() + "; Hemisphere: " + star.getHemisphere().getAbbreviation());
-                    foundStars = true;
-                }
+            for (Star star : findStarsInHemisphere(hemisphere)) {
+                System.out.println("* Star Name: " + star.getName() + "; Hemisphere: " + star.getHemisphere().getAbbreviation());
+                foundStars = true;
             }
             if (!foundStars) {
                 System.out.println("No stars found in this hemisphere ;(");
@@ -486,17 +1038,15 @@ public class Star implements Serializable {
     // method that finds supernovas (if there are any)
     public static void findSupernovas()
     {
-        List<Star> stars = loadStarsFromFile();
+        // mass > 1.44 - Chandrasekhar limit
+        List<Star> stars = findSupernovaStars();
         boolean potentialSupernova = false;
 
         try {
             for (Star star : stars)
             {
-                if (star.getMass() > 1.44) // Chandrasekhar limit
-                {
-                    potentialSupernova = true;
-                    System.out.println("* Star Name: " + star.getName() + ";" + " Star mass: " + star.getMass() + " solar masses");
-                }
+                potentialSupernova = true;
+                System.out.println("* Star Name: " + star.getName() + ";" + " Star mass: " + star.getMass() + " solar masses");
             }
             if (!potentialSupernova) {
                 System.out.println("No supernovas found ;(.");
@@ -513,19 +1063,13 @@ public class Star implements Serializable {
 
     // Star coordinates - not necessary but wanted to add it
     public static void getStarCoordinates(String name) {
-        List<Star> allStars = loadStarsFromFile();
-        boolean foundStar = false;
-
         try {
-            for (Star star : allStars)
+            Star star = StarRepository.findByName(name);
+            if (star != null)
             {
-                if (star.getName().equalsIgnoreCase(name))
-                {
-                    foundStar = true;
-                    System.out.println("* Star Name: " + star.getName() + ";" + " 1. Declination: " + star.getDeclination() + " 2. Right ascension: " + star.getRightAscension());
-                }
+                System.out.println("* Star Name: " + star.getName() + ";" + " 1. Declination: " + star.getDeclination() + " 2. Right ascension: " + star.getRightAscension());
             }
-            if (!foundStar) {
+            else {
                 System.out.println("No stars of this name found ;(.");
             }
         }
@@ -545,27 +1089,23 @@ public class Star implements Serializable {
      */
     public static void viewStars()
     {
-        List<Star> stars = loadStarsFromFile();
-        int size = stars.size();
+        // records are streamed, so an off-heap or mapped catalog isn't copied to the heap to display it
+        Iterable<? extends StarRecord> stars = StarRepository.records();
 
-        if (size == 0) {
+        if (!stars.iterator().hasNext()) {
             System.out.println("There are no stars to display");
         }
         else {
-            for (Star star : stars) {
-                System.out.println("-------------------------");
-                System.out.println("Name: " + star.name);
-                System.out.println("Catalog name: " + star.catalogName);
-                System.out.println("Hemisphere: " + star.hemisphere);
-                System.out.println("Declination: " + star.declination.getXX() + "° " + star.declination.getYY() + "' " + star.declination.getZZ() + "''");
-                System.out.println("Right ascension: " + star.rightAscension.getXX() + "h " + star.rightAscension.getYY() + "m " + star.rightAscension.getZZ() + "s");
-                System.out.println("Constellation: " + star.constellation.getName());
-                System.out.println("Apparent magnitude: " + star.apparentMagnitude);
-                System.out.println("Absolute magnitude: " + star.absoluteMagnitude);
-                System.out.println("Distance: " + star.distance + " light years");
-                System.out.println("Temperature: " + star.temperature + "°C");
-                System.out.println("Mass: " + star.mass + " solar mass");
-                System.out.println("-------------------------\n");
+            // all stars go through one buffered writer (a few big writes instead of 13 println calls per star)
+            StarExporter exporter = StarExporter.toView(System.out);
+            try {
+                exporter.exportAll(stars);
+                exporter.flush();
+            }
+            catch (IOException e) {
+                Metrics.ERRORS.increment();
+                System.err.println("Error: Couldn't display stars");
+                e.printStackTrace();
             }
         }
     }
@@ -573,41 +1113,40 @@ public class Star implements Serializable {
 
     // Method: Display Stars from a specific constellation
     public static void displayContellationStars(String constellationName) {
-        List<Star> stars = loadStarsFromFile();
-        boolean foundStars = false;
+        List<Star> stars = findStarsInConstellation(constellationName);
+        boolean foundStars = !stars.isEmpty();
 
-        for (Star star : stars) {
-            if (star.getConstellation().equalsIgnoreCase(constellationName)) {
-                foundStars = true;
-                System.out.println("-------------------------");
-                System.out.println("Name: " + star.name);
-                System.out.println("Catalog name: " + star.catalogName);
-                System.out.println("Hemisphere: " + star.hemisphere);
-                System.out.println("Declination: " + star.declination.getXX() + "° " + star.declination.getYY() + "' " + star.declination.getZZ() + "''");
-                System.out.println("Right ascension: " + star.rightAscension.getXX() + "h " + star.rightAscension.getYY() + "m " + star.rightAscension.getZZ() + "s");
-                System.out.println("Constellation: " + star.constellation.getName());
-                System.out.println("Apparent magnitude: " + star.apparentMagnitude);
-                System.out.println("Absolute magnitude: " + star.absoluteMagnitude);
-                System.out.println("Distance: " + star.distance + " light years");
-                System.out.println("Constellation: " + star.constellation.getName());
-                System.out.println("Temperature: " + star.temperature + "°C");
-                System.out.println("Mass: " + star.mass + " solar mass");
-                System.out.println("-------------------------\n");
-            }
+        StarExporter exporter = StarExporter.toView(System.out);
+        try {
+            exporter.exportAll(stars);
+            exporter.flush();
+        }
+        catch (IOException e) {
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Couldn't display stars");
+            e.printStackTrace();
         }
         if (!foundStars) {
             System.out.println("No stars in this constellation have been found ;(");
         }   
     }
 
+    // numbers of stars in constellations counted while loading the catalog (used by StarRepository.load)
+    static void initializeStarCountMap(Map<String, Integer> counts)
+    {
+        starsInAConstellation.clear();
+        starsInAConstellation.putAll(counts);
+    }
+
+    // counts stars in constellations (needed in memory-mapped read mode, where stars aren't loaded at startup)
     public static void initializeStarCountMap()  
     {
-        List<Star> stars = loadStarsFromFile();
+        Iterable<? extends StarRecord> stars = StarRepository.records();
         starsInAConstellation.clear(); 
     
-        for (Star star : stars) 
+        for (StarRecord star : stars) 
         {
-            String constellationName = star.getConstellation2().getName();
+            String constellationName = star.getConstellation();
             starsInAConstellation.put(constellationName,
             starsInAConstellation.getOrDefault(constellationName, 0) + 1);
         }
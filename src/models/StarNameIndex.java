@@ -0,0 +1,189 @@
+package src.models;
+
+import java.util.Arrays;
+
+// Lookup of stars by name for CatalogSnapshot
+/*
+    Open addressing hash tables of packed names (see Star.packName) with the stars in parallel arrays,
+    so there are no key/entry objects per star like in a HashMap<String, Star>. The top bits of a name's
+    hash choose its table, at most half of the slots of a table are used, a name is looked for from its
+    slot onwards until an empty slot.
+    Like the rest of a snapshot it isn't changed after the snapshot is published: the next snapshot starts
+    from a copy of the array of tables (copy()) and copies a table only when it changes it, so a change of
+    a few stars copies a few tables of about TABLE_SIZE stars, not the whole index.
+ */
+final class StarNameIndex {
+
+    static final StarNameIndex EMPTY = new StarNameIndex(0);
+
+    private static final int FREE = -1;
+    // number of stars in a table (on average) for which the index is made, it's made again with more tables
+    // when it has twice as many stars
+    private static final int TABLE_SIZE = 1024;
+
+    private final Table[] tables;
+    // tables that belong to this version (new or copied from the previous one), others are shared with it
+    private final boolean[] owned;
+    // a name's table is hash >>> shift (shift is 32 for a single table)
+    private final int shift;
+    private int size;
+
+    // index with room for expectedSize stars
+    StarNameIndex(int expectedSize) {
+        int count = Integer.highestOneBit(Math.max(1, expectedSize / TABLE_SIZE) * 2 - 1);
+        tables = new Table[count];
+        owned = new boolean[count];
+        shift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    private StarNameIndex(StarNameIndex index) {
+        tables = index.tables.clone();
+        owned = new boolean[tables.length];
+        shift = index.shift;
+        size = index.size;
+    }
+
+    // copy that can be changed without changing this index, with room for extra stars more
+    // (only the array of tables is copied, unless the index has to be made again with more tables)
+    StarNameIndex copy(int extra) {
+        if (size + extra <= tables.length * TABLE_SIZE * 2) {
+            return new StarNameIndex(this);
+        }
+        StarNameIndex copy = new StarNameIndex(size + extra);
+        for (Table table : tables) {
+            for (int slot = 0; table != null && slot < table.stars.length; slot++) {
+                if (table.stars[slot] != null) {
+                    copy.put(table.stars[slot]);
+                }
+            }
+        }
+        return copy;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // star with given packed name, null if there's no such star
+    Star get(int name) {
+        int hash = hash(name);
+        Table table = tables[table(hash)];
+        return table == null ? null : table.get(name, hash);
+    }
+
+    // adds a star or replaces the star with the same name
+    void put(Star star) {
+        int hash = hash(star.getPackedName());
+        int index = table(hash);
+        Table table = owned(index);
+        if ((table.size + 1) * 2 > table.names.length) {
+            table = table.resized(table.names.length * 2);
+            tables[index] = table;
+        }
+        if (table.put(star, hash)) {
+            size++;
+        }
+    }
+
+    // removes the star if it's in the index (not a star that replaced it)
+    void remove(Star star) {
+        int hash = hash(star.getPackedName());
+        int index = table(hash);
+        if (tables[index] != null && tables[index].get(star.getPackedName(), hash) == star) {
+            owned(index).remove(star.getPackedName(), hash);
+            size--;
+        }
+    }
+
+    // table that this version can change (a table shared with the previous version is copied first)
+    private Table owned(int index) {
+        if (!owned[index]) {
+            tables[index] = tables[index] == null ? new Table(16) : tables[index].resized(tables[index].names.length);
+            owned[index] = true;
+        }
+        return tables[index];
+    }
+
+    private int table(int hash) {
+        return (int) ((hash & 0xFFFFFFFFL) >>> shift);
+    }
+
+    private static int hash(int name) {
+        return name * 0x9E3779B9; // packed names are consecutive numbers, multiplying spreads them
+    }
+
+    // one hash table (slots are chosen by the low bits of the hash)
+    private static final class Table {
+        final int[] names;
+        final Star[] stars;
+        final int mask;
+        int size;
+
+        Table(int capacity) {
+            names = new int[capacity];
+            Arrays.fill(names, FREE);
+            stars = new Star[capacity];
+            mask = capacity - 1;
+        }
+
+        // copy with given capacity
+        Table resized(int capacity) {
+            Table copy = new Table(capacity);
+            for (int slot = 0; slot < stars.length; slot++) {
+                if (stars[slot] != null) {
+                    copy.put(stars[slot], hash(names[slot]));
+                }
+            }
+            return copy;
+        }
+
+        Star get(int name, int hash) {
+            for (int slot = slot(hash); names[slot] != FREE; slot = (slot + 1) & mask) {
+                if (names[slot] == name) {
+                    return stars[slot];
+                }
+            }
+            return null;
+        }
+
+        // true if the name wasn't in the table
+        boolean put(Star star, int hash) {
+            int name = star.getPackedName();
+            int slot = slot(hash);
+            while (names[slot] != FREE && names[slot] != name) {
+                slot = (slot + 1) & mask;
+            }
+            boolean added = names[slot] == FREE;
+            if (added) {
+                size++;
+            }
+            names[slot] = name;
+            stars[slot] = star;
+            return added;
+        }
+
+        void remove(int name, int hash) {
+            int slot = slot(hash);
+            while (names[slot] != name) {
+                slot = (slot + 1) & mask;
+            }
+            // names after the removed one that can't be found from their slots anymore are moved back
+            int free = slot;
+            for (int next = (slot + 1) & mask; names[next] != FREE; next = (next + 1) & mask) {
+                int home = slot(hash(names[next]));
+                if (((next - home) & mask) >= ((next - free) & mask)) {
+                    names[free] = names[next];
+                    stars[free] = stars[next];
+                    free = next;
+                }
+            }
+            names[free] = FREE;
+            stars[free] = null;
+            size--;
+        }
+
+        private int slot(int hash) {
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package src.models;
+
+import src.utils.Hemisphere;
+
+// read-only attributes of a star used by searches
+// implemented by Star, by StarView (star read straight from the memory-mapped catalog file)
+// and by rows of OffHeapCatalog (star read from memory outside the heap)
+public interface StarRecord {
+
+    String getName();
+
+    String getCatalogName();
+
+    Hemisphere getHemisphere();
+
+    // greek letter of the catalog name (0 = Alpha, 1 = Beta, ...)
+    int getGreekOrdinal();
+
+    String getDeclination();
+
+    // parts of the declination (degrees are negative in the Southern Hemisphere)
+    int getDeclinationDegrees();
+
+    int getDeclinationMinutes();
+
+    double getDeclinationSeconds();
+
+    String getRightAscension();
+
+    int getRightAscensionHours();
+
+    int getRightAscensionMinutes();
+
+    double getRightAscensionSeconds();
+
+    String getConstellation();
+
+    double getApparentMagnitude();
+
+    double getAbsoluteMagnitude();
+
+    // in light years
+    double getDistance();
+
+    double getTemperature();
+
+    double getMass();
+}
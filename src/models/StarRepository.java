@@ -0,0 +1,486 @@
+package src.models;
+
+import src.metrics.Metrics;
+import src.metrics.QueryEvent;
+import src.query.QueryPlanner;
+import src.query.StarAttribute;
+import src.query.StarQuery;
+import src.storage.CatalogLoader;
+import src.storage.MappedCatalog;
+import src.storage.OffHeapCatalog;
+import src.storage.StarView;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+// in-memory catalog of all stars
+// it is loaded from disk once at startup and every mutation (creating, removing, renaming a star)
+// goes through it, so searching/displaying stars doesn't have to read .obj files again
+/*
+    Thread safety:
+    - every constellation has its own lock (constellationLock), held by Star while it gives a new star
+      its greek letter and adds it, or removes a star and renumbers the rest of the constellation,
+      so writers of different constellations don't wait for each other there
+    - stars, lookups by name/catalog name and constellation members are kept in an immutable
+      CatalogSnapshot; a change publishes a new snapshot in one step (removing a star and renaming
+      the rest of its constellation is one change), readers use the current one without locks
+    - writers don't lock each other out either: a writer makes the next snapshot from the current one and
+      publishes it with compare-and-set (publish); when another writer was faster, the next snapshot is made
+      again from the newer one - the change is still valid, because writers of other constellations
+      don't change the member lists of this one (its lock is held)
+    - columns and sorted indexes used by queries are part of the snapshot (built on the first query in it),
+      a query takes the current snapshot once and plans against it without locks, so it never sees
+      half of a change and doesn't wait for writers
+    - in off-heap mode there are no snapshots, columns or sorted indexes: the OffHeapCatalog is read
+      under the read lock and changed under the write lock of indexLock (only records() doesn't lock it)
+    - in memory-mapped read mode there are no snapshots, columns or sorted indexes either: everything is read
+      from the MappedCatalog (lookups through its MappedIndex), the catalog file is changed only by Star
+      through the CatalogStore, and snapshot() throws instead of loading all stars into memory
+ */
+public final class StarRepository {
+
+    private static final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    // current version of the catalog (replaced only by compare-and-set, see publish)
+    private static final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
+    private static final Map<String, ReentrantLock> constellationLocks = new ConcurrentHashMap<>();
+    private static volatile boolean loaded = false;
+    // set only in memory-mapped read mode (with the number of changes made to it)
+    private static MappedCatalog mappedCatalog;
+    private static volatile long mappedVersion;
+    // set only in off-heap mode (with the number of changes made to it)
+    private static OffHeapCatalog offHeapCatalog;
+    private static volatile long offHeapVersion;
+
+    private StarRepository() {
+    }
+
+    // method that loads all stars from disk into memory (called once at startup)
+    public static void load() {
+        indexLock.writeLock().lock();
+        try {
+            loadCatalog();
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private static void loadCatalog() {
+        CatalogLoader.Result catalog = Star.loadCatalogFile();
+        List<Star> stars = catalog.getStars();
+        Star.initializeStarCountMap(catalog.getConstellationCounts());
+        snapshot.set(CatalogSnapshot.of(snapshot.get().getVersion() + 1, stars));
+        loaded = true;
+    }
+
+    // method that starts the catalog in memory-mapped read mode:
+    // stars aren't loaded at startup, searches and lookups read records straight from the mapped catalog file
+    // (only found stars are copied into memory, the catalog itself is never loaded)
+    public static void loadMapped() throws IOException {
+        Star.createCatalogFileIfMissing();
+        mappedCatalog = MappedCatalog.open(Star.CATALOG_FILE);
+        mappedVersion++;
+    }
+
+    // method that starts the catalog in off-heap mode: all stars are loaded at startup, but into memory outside
+    // the Java heap (see OffHeapCatalog), so catalogs bigger than the heap don't make GC pauses longer
+    // (searches scan the whole catalog, there are no sorted indexes)
+    public static void loadOffHeap() throws IOException {
+        Star.prepareCatalogFile();
+        indexLock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            offHeapCatalog = Files.exists(Star.CATALOG_FILE) ? OffHeapCatalog.load(Star.CATALOG_FILE) : new OffHeapCatalog();
+            Metrics.CATALOG_LOAD.recordSince(start);
+            Star.initializeStarCountMap(offHeapCatalog.constellationCounts());
+            offHeapVersion++;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    // version of the catalog: 1 after loading, one more after every change (version of the current snapshot)
+    public static long version() {
+        if (offHeapCatalog != null) {
+            return offHeapVersion;
+        }
+        return mappedCatalog != null ? mappedVersion : snapshot().getVersion();
+    }
+
+    // current version of the catalog - everything read from one snapshot is consistent,
+    // changes made after it was taken aren't visible in it
+    // (there are no snapshots in memory-mapped read and off-heap modes, see ensureLoaded)
+    public static CatalogSnapshot snapshot() {
+        ensureLoaded();
+        return snapshot.get();
+    }
+
+    // records used by searches - stars in memory, or records of the mapped catalog file in mapped read mode
+    // (in mapped read mode and in off-heap mode the same view is reused for every record)
+    public static Iterable<? extends StarRecord> records() {
+        if (offHeapCatalog != null) {
+            return offHeapCatalog.records();
+        }
+        if (mappedCatalog != null) {
+            Star.commitCatalog();
+            return mappedCatalog.records();
+        }
+        return getStars();
+    }
+
+    // method that returns all stars in the catalog (read only list of the current snapshot, no disk access)
+    // (in off-heap and memory-mapped read modes a copy of all stars on the heap - records() doesn't copy them)
+    public static List<Star> getStars() {
+        if (offHeapCatalog != null || mappedCatalog != null) {
+            return find(StarQuery.stars());
+        }
+        return snapshot().getStars();
+    }
+
+    // method that finds a star by its name (e.g. ABC1234), returns null if there's no such star
+    public static Star findByName(String name) {
+        if (offHeapCatalog != null) {
+            indexLock.readLock().lock();
+            try {
+                return offHeapCatalog.findByName(name);
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        }
+        if (mappedCatalog != null) {
+            Star.commitCatalog();
+            return mappedCatalog.findByName(name);
+        }
+        return snapshot().findByName(name);
+    }
+
+    // method that finds a star by its catalog name (e.g. alpha Orion), returns null if there's no such star
+    public static Star findByCatalogName(String catalogName) {
+        if (offHeapCatalog != null) {
+            indexLock.readLock().lock();
+            try {
+                return offHeapCatalog.findByCatalogName(catalogName);
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        }
+        if (mappedCatalog != null) {
+            Star.commitCatalog();
+            return mappedCatalog.findByCatalogName(catalogName);
+        }
+        return snapshot().findByCatalogName(catalogName);
+    }
+
+    // stars of a constellation ordered by greek letter (read only, empty if there are no stars in it)
+    public static List<Star> getConstellationMembers(String constellationName) {
+        if (offHeapCatalog != null || mappedCatalog != null) {
+            return storedMembers(constellationName, false);
+        }
+        return snapshot().getConstellationMembers(constellationName);
+    }
+
+    // same, but constellation name is case insensitive
+    public static List<Star> getConstellationMembersIgnoreCase(String constellationName) {
+        if (offHeapCatalog != null || mappedCatalog != null) {
+            return storedMembers(constellationName, true);
+        }
+        return snapshot().getConstellationMembersIgnoreCase(constellationName);
+    }
+
+    // members read from the off-heap or mapped catalog
+    private static List<Star> storedMembers(String constellationName, boolean ignoreCase) {
+        if (mappedCatalog != null) {
+            Star.commitCatalog();
+            return Collections.unmodifiableList(mappedCatalog.getConstellationMembers(constellationName, ignoreCase));
+        }
+        indexLock.readLock().lock();
+        try {
+            return Collections.unmodifiableList(offHeapCatalog.getConstellationMembers(constellationName, ignoreCase));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    // method that runs a query (see StarQuery and QueryPlanner)
+    public static List<Star> find(StarQuery query) {
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        try {
+            List<Star> found = findStars(query, event);
+            event.end();
+            if (event.shouldCommit()) {
+                event.constellation = query.getConstellation();
+                event.stars = found.size();
+                event.commit();
+            }
+            return found;
+        } finally {
+            Metrics.QUERY.recordSince(start);
+        }
+    }
+
+    // the plan is described in the event only when it's recorded
+    private static List<Star> findStars(StarQuery query, QueryEvent event) {
+        if (offHeapCatalog != null) {
+            if (event.isEnabled()) {
+                event.plan = "scan of the off-heap catalog";
+            }
+            indexLock.readLock().lock();
+            try {
+                return offHeapCatalog.find(query);
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        }
+        if (mappedCatalog != null) {
+            if (event.isEnabled()) {
+                event.plan = "scan of the mapped catalog file";
+            }
+            // in mapped read mode there are no indexes, every record is checked with all criteria
+            Star.commitCatalog();
+            boolean ordered = query.getOrder() == null;
+            int stopAt = ordered && query.getLimit() >= 0 ? query.getLimit() : Integer.MAX_VALUE;
+            List<Star> found = new ArrayList<>();
+            for (StarView star : mappedCatalog.records()) {
+                if (found.size() >= stopAt) {
+                    break;
+                }
+                if (query.matches(star)) {
+                    found.add(star.toStar());
+                }
+            }
+            return QueryPlanner.finish(query, found, ordered);
+        }
+        QueryPlanner.Plan plan = plan(snapshot(), query);
+        if (event.isEnabled()) {
+            event.plan = plan.toString();
+        }
+        return plan.execute();
+    }
+
+    // statistics of an attribute of stars found by a query
+    public static DoubleSummaryStatistics summarize(StarQuery query, StarAttribute attribute) {
+        if (offHeapCatalog != null) {
+            indexLock.readLock().lock();
+            try {
+                return offHeapCatalog.summarize(query, attribute);
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        }
+        if (mappedCatalog != null) {
+            DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+            for (Star star : find(query)) {
+                statistics.accept(attribute.get(star));
+            }
+            return statistics;
+        }
+        return plan(snapshot(), query).summarize(attribute);
+    }
+
+    // description of the way a query is run
+    public static String explain(StarQuery query) {
+        if (offHeapCatalog != null) {
+            return "scan of the off-heap catalog";
+        }
+        if (mappedCatalog != null) {
+            return "scan of the mapped catalog file";
+        }
+        return plan(snapshot(), query).toString();
+    }
+
+    // plan of a query against one version of the catalog (everything it reads belongs to that version)
+    private static QueryPlanner.Plan plan(CatalogSnapshot current, StarQuery query) {
+        List<Star> members = null;
+        if (query.getConstellation() != null) {
+            // constellation names in queries are case insensitive
+            members = current.getConstellationMembersIgnoreCase(query.getConstellation());
+        }
+        return QueryPlanner.plan(query, current.rangeIndexes(), current.columns(), members);
+    }
+
+    // method that finds stars within radius from given position (right ascension, declination and radius in degrees)
+    public static List<Star> coneSearch(double ra, double dec, double radius) {
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        List<Star> found;
+        if (offHeapCatalog != null) {
+            indexLock.readLock().lock();
+            try {
+                found = offHeapCatalog.coneSearch(ra, dec, radius);
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        } else if (mappedCatalog != null) {
+            Star.commitCatalog();
+            found = mappedCatalog.coneSearch(ra, dec, radius);
+        } else {
+            found = snapshot().skyIndex().coneSearch(ra, dec, radius);
+        }
+        Metrics.SEARCH_CONE.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.plan = "cone search: ra " + ra + ", dec " + dec + ", radius " + radius;
+            event.stars = found.size();
+            event.commit();
+        }
+        return found;
+    }
+
+    // method that finds stars with raMin <= right ascension <= raMax and decMin <= declination <= decMax (in degrees)
+    public static List<Star> boxSearch(double raMin, double raMax, double decMin, double decMax) {
+        long start = System.nanoTime();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        List<Star> found;
+        if (offHeapCatalog != null) {
+            indexLock.readLock().lock();
+            try {
+                found = offHeapCatalog.boxSearch(raMin, raMax, decMin, decMax);
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        } else if (mappedCatalog != null) {
+            Star.commitCatalog();
+            found = mappedCatalog.boxSearch(raMin, raMax, decMin, decMax);
+        } else {
+            found = snapshot().skyIndex().boxSearch(raMin, raMax, decMin, decMax);
+        }
+        Metrics.SEARCH_BOX.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.plan = "box search: ra " + raMin + ".." + raMax + ", dec " + decMin + ".." + decMax;
+            event.stars = found.size();
+            event.commit();
+        }
+        return found;
+    }
+
+    // number of stars in the catalog
+    public static int size() {
+        if (offHeapCatalog != null) {
+            indexLock.readLock().lock();
+            try {
+                return offHeapCatalog.size();
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        }
+        if (mappedCatalog != null) {
+            Star.commitCatalog();
+            return mappedCatalog.size();
+        }
+        return snapshot().size();
+    }
+
+    // lock of a constellation, held while a star of it gets its greek letter and is added,
+    // or while a star of it is removed and the rest are renumbered (see Star)
+    static ReentrantLock constellationLock(String constellationName) {
+        return constellationLocks.computeIfAbsent(constellationName, k -> new ReentrantLock());
+    }
+
+    // adds a newly created star (used by Star.create, with the constellation's lock held)
+    static void add(Star star) {
+        if (offHeapCatalog != null) {
+            addOffHeap(Collections.singletonList(star));
+            return;
+        }
+        if (mappedCatalog != null) {
+            mappedVersion++; // the star is read from the catalog file once Star has saved it
+            return;
+        }
+        ensureLoaded();
+        publish(current -> current.withAdded(Collections.singletonList(star)));
+    }
+
+    // adds many newly created stars (used by bulk import)
+    static void addAll(List<Star> added) {
+        if (offHeapCatalog != null) {
+            addOffHeap(added);
+            return;
+        }
+        if (mappedCatalog != null) {
+            mappedVersion++;
+            return;
+        }
+        ensureLoaded();
+        publish(current -> current.withAdded(added));
+    }
+
+    // removes a star from the catalog and replaces renamed stars of its constellation with their new versions
+    // (used in Star.removeStar, with the constellation's lock held) - readers see both changes at once
+    static void remove(Star star, List<Star> renamed) {
+        if (offHeapCatalog != null) {
+            indexLock.writeLock().lock();
+            try {
+                offHeapCatalog.remove(star.getName());
+                for (Star newVersion : renamed) {
+                    offHeapCatalog.put(newVersion);
+                }
+                offHeapVersion++;
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+            return;
+        }
+        if (mappedCatalog != null) {
+            mappedVersion++;
+            return;
+        }
+        ensureLoaded();
+        publish(current -> current.withRemoved(star, renamed));
+    }
+
+    // method that publishes the next version made by change from the current one,
+    // the next version is made again if another writer published a version in the meantime
+    private static void publish(UnaryOperator<CatalogSnapshot> change) {
+        CatalogSnapshot current;
+        CatalogSnapshot next;
+        do {
+            current = snapshot.get();
+            next = change.apply(current);
+        } while (!snapshot.compareAndSet(current, next));
+    }
+
+    private static void addOffHeap(List<Star> added) {
+        indexLock.writeLock().lock();
+        try {
+            for (Star star : added) {
+                offHeapCatalog.put(star);
+            }
+            offHeapVersion++;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    // loads the catalog lazily in case load() wasn't called at startup
+    // (never in memory-mapped read or off-heap mode - the catalog may not fit into the heap there)
+    private static void ensureLoaded() {
+        if (mappedCatalog != null || offHeapCatalog != null) {
+            throw new IllegalStateException("There's no in-memory copy of the catalog in "
+                    + (mappedCatalog != null ? "memory-mapped read" : "off-heap") + " mode");
+        }
+        if (!loaded) {
+            indexLock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    loadCatalog();
+                }
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        }
+    }
+}
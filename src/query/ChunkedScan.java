@@ -0,0 +1,163 @@
+package src.query;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Scan of the column store with all criteria of a query, sequential or in parallel
+/*
+    Rows are split into chunks of CHUNK_SIZE rows. Every chunk is scanned like the whole
+    store is scanned sequentially (selectRange/refineRange on the chunk's rows), so both
+    modes give the same rows. In parallel mode chunks are run as fork-join tasks on the
+    common pool: a task splits its rows in half until it has one chunk, and the selected
+    rows of the left half are put before the rows of the right half, so the result is in
+    catalog order, same as a sequential scan.
+
+    Parallel mode is used automatically for stores with at least PARALLEL_THRESHOLD rows
+    (below it starting the tasks costs more than it saves, see ParallelScanBenchmark in the benchmarks module).
+    The threshold can be changed with -Dstarmanager.query.parallelThreshold=<rows>
+    (0 = always parallel).
+
+    Criteria given with StarQuery.where() are run by several threads at once in parallel mode.
+ */
+public final class ChunkedScan {
+
+    static final int CHUNK_SIZE = 1 << 14;
+    public static final int PARALLEL_THRESHOLD = Integer.getInteger("starmanager.query.parallelThreshold", 1 << 17);
+
+    private ChunkedScan() {
+    }
+
+    // should a store of given size be scanned in parallel
+    public static boolean isParallel(int rows) {
+        return rows >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    // rows (in catalog order) of stars matching all criteria of the query except constellation
+    public static int[] select(ColumnarStarStore columns, StarQuery query, boolean parallel) {
+        if (!parallel) {
+            return selectChunk(columns, query, 0, columns.size());
+        }
+        return ForkJoinPool.commonPool().invoke(new SelectTask(columns, query, 0, columns.size()));
+    }
+
+    // statistics (count, sum, min, max, average) of an attribute of stars matching the query
+    public static DoubleSummaryStatistics summarize(ColumnarStarStore columns, StarQuery query, StarAttribute attribute, boolean parallel) {
+        if (!parallel) {
+            return summarizeChunk(columns, query, attribute, 0, columns.size());
+        }
+        return ForkJoinPool.commonPool().invoke(new SummarizeTask(columns, query, attribute, 0, columns.size()));
+    }
+
+    // SEQUENTIAL SCAN OF ONE RANGE OF ROWS
+
+    private static int[] selectChunk(ColumnarStarStore columns, StarQuery query, int from, int to) {
+        int[] selection = new int[to - from];
+        int count = -1;
+        for (Map.Entry<StarAttribute, double[]> range : query.getRanges().entrySet()) {
+            double min = range.getValue()[0];
+            double max = range.getValue()[1];
+            count = count < 0 ? columns.selectRange(range.getKey(), min, max, selection, from, to)
+                    : columns.refineRange(range.getKey(), min, max, selection, count);
+        }
+        if (query.getHemisphere() != null) {
+            count = count < 0 ? columns.selectHemisphere(query.getHemisphere(), selection, from, to)
+                    : columns.refineHemisphere(query.getHemisphere(), selection, count);
+        }
+        if (count < 0) {
+            count = to - from;
+            for (int i = 0; i < count; i++) {
+                selection[i] = from + i;
+            }
+        }
+
+        if (query.hasFilters()) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = selection[i];
+                selection[kept] = row;
+                kept += query.matchesFilters(columns.get(row)) ? 1 : 0;
+            }
+            count = kept;
+        }
+        return count == selection.length ? selection : Arrays.copyOf(selection, count);
+    }
+
+    private static DoubleSummaryStatistics summarizeChunk(ColumnarStarStore columns, StarQuery query, StarAttribute attribute, int from, int to) {
+        int[] rows = selectChunk(columns, query, from, to);
+        double[] values = columns.column(attribute);
+        DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+        for (int row : rows) {
+            statistics.accept(values[row]);
+        }
+        return statistics;
+    }
+
+    // FORK-JOIN TASKS
+    // (ForkJoinTask is Serializable, the tasks are never serialized, so the store and the query are transient)
+
+    private static final class SelectTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ColumnarStarStore columns;
+        private final transient StarQuery query;
+        private final int from;
+        private final int to;
+
+        SelectTask(ColumnarStarStore columns, StarQuery query, int from, int to) {
+            this.columns = columns;
+            this.query = query;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return selectChunk(columns, query, from, to);
+            }
+            int middle = from + (to - from) / 2;
+            SelectTask left = new SelectTask(columns, query, from, middle);
+            left.fork();
+            int[] right = new SelectTask(columns, query, middle, to).compute();
+            int[] leftRows = left.join();
+
+            int[] rows = Arrays.copyOf(leftRows, leftRows.length + right.length);
+            System.arraycopy(right, 0, rows, leftRows.length, right.length);
+            return rows;
+        }
+    }
+
+    private static final class SummarizeTask extends RecursiveTask<DoubleSummaryStatistics> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ColumnarStarStore columns;
+        private final transient StarQuery query;
+        private final StarAttribute attribute;
+        private final int from;
+        private final int to;
+
+        SummarizeTask(ColumnarStarStore columns, StarQuery query, StarAttribute attribute, int from, int to) {
+            this.columns = columns;
+            this.query = query;
+            this.attribute = attribute;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected DoubleSummaryStatistics compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return summarizeChunk(columns, query, attribute, from, to);
+            }
+            int middle = from + (to - from) / 2;
+            SummarizeTask left = new SummarizeTask(columns, query, attribute, from, middle);
+            left.fork();
+            DoubleSummaryStatistics statistics = new SummarizeTask(columns, query, attribute, middle, to).compute();
+            statistics.combine(left.join());
+            return statistics;
+        }
+    }
+}
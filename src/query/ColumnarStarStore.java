@@ -0,0 +1,196 @@
+package src.query;
+
+import src.models.Star;
+import src.utils.Hemisphere;
+
+import java.util.Arrays;
+
+// Column store of star attributes used by range searches
+/*
+    Every numeric attribute is kept in its own double[] (row i = i-th star of the catalog),
+    so a range search is a tight loop over one primitive array instead of walking Star objects.
+
+    Searches use selection vectors: select*() writes numbers of matching rows to an int[]
+    and returns how many there are, refine*() narrows down an existing selection.
+    Loops don't branch on the compared value (the row is always written, the counter is
+    increased only on a match), so the JIT can compile them without unpredictable jumps.
+ */
+public class ColumnarStarStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final double[][] columns = new double[StarAttribute.values().length][];
+    private byte[] hemispheres;
+    private Star[] stars;
+    private int size;
+
+    public ColumnarStarStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    // store with space for given number of rows (it still grows when more are added)
+    public ColumnarStarStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new double[capacity];
+        }
+        hemispheres = new byte[capacity];
+        stars = new Star[capacity];
+    }
+
+    // number of rows (stars)
+    public int size() {
+        return size;
+    }
+
+    // star stored in given row
+    public Star get(int row) {
+        return stars[row];
+    }
+
+    // column of given attribute, values are valid for rows 0..size()-1
+    public double[] column(StarAttribute attribute) {
+        return columns[attribute.ordinal()];
+    }
+
+    // selection vector big enough for all rows
+    public int[] newSelection() {
+        return new int[size];
+    }
+
+    // adds a star as the last row
+    public void add(Star star) {
+        if (size == stars.length) {
+            grow();
+        }
+        for (StarAttribute attribute : StarAttribute.values()) {
+            columns[attribute.ordinal()][size] = attribute.get(star);
+        }
+        hemispheres[size] = (byte) star.getHemisphere().ordinal();
+        stars[size] = star;
+        size++;
+    }
+
+    // copies count rows of another store starting at row from, they're added as the last rows
+    // (copied column by column, the stars aren't read again)
+    public void addRows(ColumnarStarStore source, int from, int count) {
+        while (size + count > stars.length) {
+            grow();
+        }
+        for (int i = 0; i < columns.length; i++) {
+            System.arraycopy(source.columns[i], from, columns[i], size, count);
+        }
+        System.arraycopy(source.hemispheres, from, hemispheres, size, count);
+        System.arraycopy(source.stars, from, stars, size, count);
+        size += count;
+    }
+
+    // removes a star, following rows are moved one row up (so rows stay in catalog order)
+    public boolean remove(Star star) {
+        int row = -1;
+        for (int i = 0; i < size; i++) {
+            if (stars[i] == star) {
+                row = i;
+                break;
+            }
+        }
+        if (row < 0) {
+            return false;
+        }
+
+        int moved = size - row - 1;
+        for (double[] column : columns) {
+            System.arraycopy(column, row + 1, column, row, moved);
+        }
+        System.arraycopy(hemispheres, row + 1, hemispheres, row, moved);
+        System.arraycopy(stars, row + 1, stars, row, moved);
+        size--;
+        stars[size] = null;
+        return true;
+    }
+
+    // puts a new version of a star (e.g. renamed, with the same attributes) into the old one's row
+    public boolean replace(Star oldStar, Star newStar) {
+        for (int i = 0; i < size; i++) {
+            if (stars[i] == oldStar) {
+                stars[i] = newStar;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(stars, 0, size, null);
+        size = 0;
+    }
+
+    // SELECTION VECTOR API
+
+    // writes rows with min <= value <= max to selection, returns number of selected rows
+    public int selectRange(StarAttribute attribute, double min, double max, int[] selection) {
+        return selectRange(attribute, min, max, selection, 0, size);
+    }
+
+    // same for rows from..to-1 only (used by chunked scans)
+    public int selectRange(StarAttribute attribute, double min, double max, int[] selection, int from, int to) {
+        double[] values = column(attribute);
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            double value = values[row];
+            selection[count] = row;
+            count += (value >= min & value <= max) ? 1 : 0;
+        }
+        return count;
+    }
+
+    // keeps only selected rows with min <= value <= max, returns new number of selected rows
+    public int refineRange(StarAttribute attribute, double min, double max, int[] selection, int count) {
+        double[] values = column(attribute);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = selection[i];
+            double value = values[row];
+            selection[kept] = row;
+            kept += (value >= min & value <= max) ? 1 : 0;
+        }
+        return kept;
+    }
+
+    // writes rows of stars from given hemisphere to selection, returns number of selected rows
+    public int selectHemisphere(Hemisphere hemisphere, int[] selection) {
+        return selectHemisphere(hemisphere, selection, 0, size);
+    }
+
+    // same for rows from..to-1 only (used by chunked scans)
+    public int selectHemisphere(Hemisphere hemisphere, int[] selection, int from, int to) {
+        byte wanted = (byte) hemisphere.ordinal();
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            selection[count] = row;
+            count += hemispheres[row] == wanted ? 1 : 0;
+        }
+        return count;
+    }
+
+    // keeps only selected rows of stars from given hemisphere, returns new number of selected rows
+    public int refineHemisphere(Hemisphere hemisphere, int[] selection, int count) {
+        byte wanted = (byte) hemisphere.ordinal();
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = selection[i];
+            selection[kept] = row;
+            kept += hemispheres[row] == wanted ? 1 : 0;
+        }
+        return kept;
+    }
+
+    private void grow() {
+        int capacity = stars.length * 2;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Arrays.copyOf(columns[i], capacity);
+        }
+        hemispheres = Arrays.copyOf(hemispheres, capacity);
+        stars = Arrays.copyOf(stars, capacity);
+    }
+}
@@ -0,0 +1,171 @@
+package src.query;
+
+import src.index.RangeIndex;
+import src.models.Star;
+
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+
+// Chooses how a StarQuery is run
+/*
+    1. stars of one constellation - when the query has a constellation (at most 24 stars)
+    2. range index of the most selective attribute - when it leaves at most 1/8 of the catalog
+       (RangeIndex.count() is only two binary searches, so every range of the query is estimated)
+    3. one scan over the columns - all ranges and the hemisphere are checked in one pass
+       with a selection vector (ColumnarStarStore.selectRange/refineRange), in parallel
+       chunks for big catalogs (ChunkedScan)
+    The chosen candidates are then checked with all criteria of the query (StarQuery.matches),
+    sorted (unless the index already gives them in the wanted order) and cut to the limit.
+ */
+public final class QueryPlanner {
+
+    // an index is used when it leaves at most this part of the catalog, otherwise the columns are scanned
+    private static final double INDEX_SELECTIVITY = 0.125;
+
+    private QueryPlanner() {
+    }
+
+    public enum Strategy {
+        CONSTELLATION,
+        INDEX,
+        SCAN
+    }
+
+    // chosen way of running a query
+    public static final class Plan {
+        private final StarQuery query;
+        private final Strategy strategy;
+        private final StarAttribute attribute; // only for INDEX
+        private final int estimate;
+        private final int catalogSize;
+        private final RangeIndex index;
+        private final ColumnarStarStore columns;
+        private final List<Star> members;
+
+        private Plan(StarQuery query, Strategy strategy, StarAttribute attribute, int estimate, int catalogSize,
+                     RangeIndex index, ColumnarStarStore columns, List<Star> members) {
+            this.query = query;
+            this.strategy = strategy;
+            this.attribute = attribute;
+            this.estimate = estimate;
+            this.catalogSize = catalogSize;
+            this.index = index;
+            this.columns = columns;
+            this.members = members;
+        }
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        // attribute of the used index (null if no index is used)
+        public StarAttribute getAttribute() {
+            return attribute;
+        }
+
+        // method that runs the query
+        public List<Star> execute() {
+            List<Star> found = new ArrayList<>();
+            // without sorting the first limit stars are the result, so searching can stop there
+            boolean ordered = query.getOrder() == null
+                    || (strategy == Strategy.INDEX && query.getAscendingOrderAttribute() == attribute);
+            int stopAt = ordered && query.getLimit() >= 0 ? query.getLimit() : Integer.MAX_VALUE;
+
+            switch (strategy) {
+                case CONSTELLATION -> {
+                    for (int i = 0; i < members.size() && found.size() < stopAt; i++) {
+                        Star star = members.get(i);
+                        if (query.matches(star)) {
+                            found.add(star);
+                        }
+                    }
+                }
+                case INDEX -> {
+                    double[] range = query.getRanges().get(attribute);
+                    for (Star star : index.range(range[0], range[1])) {
+                        if (found.size() >= stopAt) {
+                            break;
+                        }
+                        if (query.matches(star)) {
+                            found.add(star);
+                        }
+                    }
+                }
+                case SCAN -> scan(found, stopAt);
+            }
+            return finish(query, found, ordered);
+        }
+
+        // all ranges and the hemisphere in one pass over the columns, then filters on the selected stars
+        // (big catalogs are scanned in parallel chunks, see ChunkedScan)
+        private void scan(List<Star> found, int stopAt) {
+            int[] rows = ChunkedScan.select(columns, query, ChunkedScan.isParallel(catalogSize));
+            for (int i = 0; i < rows.length && found.size() < stopAt; i++) {
+                found.add(columns.get(rows[i]));
+            }
+        }
+
+        // statistics of an attribute of found stars (a scan without a limit doesn't create the list of stars)
+        public DoubleSummaryStatistics summarize(StarAttribute attribute) {
+            if (strategy == Strategy.SCAN && query.getLimit() < 0) {
+                return ChunkedScan.summarize(columns, query, attribute, ChunkedScan.isParallel(catalogSize));
+            }
+            DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+            for (Star star : execute()) {
+                statistics.accept(attribute.get(star));
+            }
+            return statistics;
+        }
+
+        @Override
+        public String toString() {
+            String filters = query.hasFilters() ? " + filters" : "";
+            return switch (strategy) {
+                case CONSTELLATION -> "stars of constellation " + query.getConstellation() + " (" + estimate + " stars)" + filters;
+                case INDEX -> "index on " + attribute + " (~" + estimate + " of " + catalogSize + " stars)" + filters;
+                case SCAN -> (ChunkedScan.isParallel(catalogSize) ? "parallel scan of " : "scan of ") + catalogSize + " stars" + filters;
+            };
+        }
+    }
+
+    // method that chooses the way of running a query
+    // members - stars of the query's constellation (null if the query has no constellation)
+    public static Plan plan(StarQuery query, Map<StarAttribute, RangeIndex> indexes, ColumnarStarStore columns, List<Star> members) {
+        int catalogSize = columns.size();
+        if (members != null) {
+            return new Plan(query, Strategy.CONSTELLATION, null, members.size(), catalogSize, null, columns, members);
+        }
+
+        StarAttribute best = null;
+        int bestCount = Integer.MAX_VALUE;
+        for (Map.Entry<StarAttribute, double[]> range : query.getRanges().entrySet()) {
+            RangeIndex index = indexes.get(range.getKey());
+            if (index == null) {
+                continue;
+            }
+            int count = index.count(range.getValue()[0], range.getValue()[1]);
+            if (count < bestCount) {
+                best = range.getKey();
+                bestCount = count;
+            }
+        }
+        if (best != null && bestCount <= catalogSize * INDEX_SELECTIVITY) {
+            return new Plan(query, Strategy.INDEX, best, bestCount, catalogSize, indexes.get(best), columns, null);
+        }
+        return new Plan(query, Strategy.SCAN, null, catalogSize, catalogSize, null, columns, null);
+    }
+
+    // sorts found stars (unless they're already in order) and cuts them to the limit of the query
+    public static List<Star> finish(StarQuery query, List<Star> found, boolean ordered) {
+        if (!ordered && query.getOrder() != null) {
+            found.sort(query.getOrder());
+        }
+        int limit = query.getLimit();
+        if (limit >= 0 && found.size() > limit) {
+            found.subList(limit, found.size()).clear();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,24 @@
+package src.query;
+
+import src.models.StarRecord;
+
+// numeric attributes of a star that can be searched by range
+public enum StarAttribute {
+    APPARENT_MAGNITUDE,
+    ABSOLUTE_MAGNITUDE,
+    DISTANCE, // in light years
+    TEMPERATURE,
+    MASS;
+
+    // value of this attribute for given star
+    public double get(StarRecord star) {
+        switch (this) {
+            case APPARENT_MAGNITUDE -> { return star.getApparentMagnitude(); }
+            case ABSOLUTE_MAGNITUDE -> { return star.getAbsoluteMagnitude(); }
+            case DISTANCE -> { return star.getDistance(); }
+            case TEMPERATURE -> { return star.getTemperature(); }
+            case MASS -> { return star.getMass(); }
+            default -> throw new IllegalArgumentException("Unknown attribute: " + this);
+        }
+    }
+}
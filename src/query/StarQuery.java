@@ -0,0 +1,241 @@
+package src.query;
+
+import src.models.Star;
+import src.models.StarRecord;
+import src.models.StarRepository;
+import src.utils.Hemisphere;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Search for stars that combines several criteria, e.g.
+//     StarQuery.stars()
+//         .inHemisphere(Hemisphere.SOUTHERN)
+//         .between(StarAttribute.TEMPERATURE, 5000, 9000)
+//         .above(StarAttribute.MASS, 1.44)
+//         .orderBy(StarAttribute.MASS)
+//         .limit(10)
+//         .list();
+/*
+    The query only collects criteria. When results are asked for (list(), stream(), project(), count(), summarize())
+    QueryPlanner decides how to find them (index of the most selective attribute, stars of one
+    constellation or one scan over the columns with all criteria together), see explain().
+    Criteria given with where() can't use an index, they're checked on every candidate star.
+ */
+public final class StarQuery {
+
+    // min/max of every attribute range (both inclusive)
+    private final Map<StarAttribute, double[]> ranges = new EnumMap<>(StarAttribute.class);
+    private final List<Predicate<? super StarRecord>> filters = new ArrayList<>();
+    private Hemisphere hemisphere;
+    private String constellation;
+    private Comparator<? super Star> order;
+    private StarAttribute orderAttribute;
+    private boolean descending;
+    private int limit = -1;
+
+    private StarQuery() {
+    }
+
+    // new query over all stars of the catalog
+    public static StarQuery stars() {
+        return new StarQuery();
+    }
+
+    // CRITERIA
+
+    // min <= value <= max (giving the same attribute again narrows the range)
+    public StarQuery between(StarAttribute attribute, double min, double max) {
+        if (Double.isNaN(min) || Double.isNaN(max)) {
+            throw new IllegalArgumentException("Range of " + attribute + " can't be NaN");
+        }
+        double[] range = ranges.get(attribute);
+        if (range == null) {
+            ranges.put(attribute, new double[] {min, max});
+        } else {
+            range[0] = Math.max(range[0], min);
+            range[1] = Math.min(range[1], max);
+        }
+        return this;
+    }
+
+    // value >= min
+    public StarQuery atLeast(StarAttribute attribute, double min) {
+        return between(attribute, min, Double.POSITIVE_INFINITY);
+    }
+
+    // value > min
+    public StarQuery above(StarAttribute attribute, double min) {
+        return between(attribute, Math.nextUp(min), Double.POSITIVE_INFINITY);
+    }
+
+    // value <= max
+    public StarQuery atMost(StarAttribute attribute, double max) {
+        return between(attribute, Double.NEGATIVE_INFINITY, max);
+    }
+
+    // value < max
+    public StarQuery below(StarAttribute attribute, double max) {
+        return between(attribute, Double.NEGATIVE_INFINITY, Math.nextDown(max));
+    }
+
+    public StarQuery inHemisphere(Hemisphere hemisphere) {
+        if (this.hemisphere != null && this.hemisphere != hemisphere) {
+            filters.add(star -> false); // a star can't be in both hemispheres
+        }
+        this.hemisphere = hemisphere;
+        return this;
+    }
+
+    // stars of one constellation (name is case insensitive)
+    public StarQuery inConstellation(String constellation) {
+        if (this.constellation != null && !this.constellation.equalsIgnoreCase(constellation)) {
+            filters.add(star -> false);
+        }
+        this.constellation = constellation;
+        return this;
+    }
+
+    // any other criterion (checked star by star, after the indexed criteria)
+    public StarQuery where(Predicate<? super StarRecord> filter) {
+        filters.add(filter);
+        return this;
+    }
+
+    // ORDER AND LIMIT
+
+    // ascending order of an attribute
+    public StarQuery orderBy(StarAttribute attribute) {
+        return orderBy(attribute, false);
+    }
+
+    public StarQuery orderByDescending(StarAttribute attribute) {
+        return orderBy(attribute, true);
+    }
+
+    private StarQuery orderBy(StarAttribute attribute, boolean descending) {
+        Comparator<Star> comparator = Comparator.comparingDouble(attribute::get);
+        this.order = descending ? comparator.reversed() : comparator;
+        this.orderAttribute = attribute;
+        this.descending = descending;
+        return this;
+    }
+
+    // any other order (e.g. Comparator.comparing(Star::getName))
+    public StarQuery orderBy(Comparator<? super Star> order) {
+        this.order = order;
+        this.orderAttribute = null;
+        this.descending = false;
+        return this;
+    }
+
+    // at most limit stars
+    public StarQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit can't be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    // RESULTS
+
+    // found stars (order depends on the chosen plan unless orderBy was given)
+    public List<Star> list() {
+        return StarRepository.find(this);
+    }
+
+    public Stream<Star> stream() {
+        return list().stream();
+    }
+
+    // chosen values of found stars, e.g. project(Star::getName)
+    public <T> List<T> project(Function<? super Star, ? extends T> projection) {
+        List<Star> found = list();
+        List<T> values = new ArrayList<>(found.size());
+        for (Star star : found) {
+            values.add(projection.apply(star));
+        }
+        return values;
+    }
+
+    public int count() {
+        return (int) summarize(StarAttribute.MASS).getCount();
+    }
+
+    // count, sum, min, max and average of an attribute of found stars
+    public DoubleSummaryStatistics summarize(StarAttribute attribute) {
+        return StarRepository.summarize(this, attribute);
+    }
+
+    // description of the way the query is run (e.g. "index on TEMPERATURE (~120 of 5000 stars) + 2 filters")
+    public String explain() {
+        return StarRepository.explain(this);
+    }
+
+    // USED BY QueryPlanner
+
+    public Map<StarAttribute, double[]> getRanges() {
+        return ranges;
+    }
+
+    public Hemisphere getHemisphere() {
+        return hemisphere;
+    }
+
+    public String getConstellation() {
+        return constellation;
+    }
+
+    public boolean hasFilters() {
+        return !filters.isEmpty();
+    }
+
+    public Comparator<? super Star> getOrder() {
+        return order;
+    }
+
+    // attribute of orderBy(attribute) (null for orderBy(comparator) and descending order)
+    public StarAttribute getAscendingOrderAttribute() {
+        return descending ? null : orderAttribute;
+    }
+
+    // -1 = no limit
+    public int getLimit() {
+        return limit;
+    }
+
+    // checks every criterion (ranges, hemisphere, constellation and filters)
+    public boolean matches(StarRecord star) {
+        for (Map.Entry<StarAttribute, double[]> range : ranges.entrySet()) {
+            double value = range.getKey().get(star);
+            if (value < range.getValue()[0] || value > range.getValue()[1]) {
+                return false;
+            }
+        }
+        if (hemisphere != null && star.getHemisphere() != hemisphere) {
+            return false;
+        }
+        if (constellation != null && !star.getConstellation().equalsIgnoreCase(constellation)) {
+            return false;
+        }
+        return matchesFilters(star);
+    }
+
+    // checks only criteria given with where()
+    public boolean matchesFilters(StarRecord star) {
+        for (Predicate<? super StarRecord> filter : filters) {
+            if (!filter.test(star)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
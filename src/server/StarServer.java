@@ -0,0 +1,260 @@
+package src.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import src.io.ExportFormat;
+import src.io.StarExporter;
+import src.metrics.Metrics;
+import src.models.Star;
+import src.models.StarRepository;
+import src.utils.Hemisphere;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP server answering catalog searches with JSON (started with "Main serve [port]")
+/*
+    GET /stars/distance?parsecs=12.5               findStarByDistance
+    GET /stars/temperature?min=3000&max=6000       findStarByTemperature
+    GET /stars/magnitude?min=-5&max=2              findStarByMagnitude (absolute magnitude)
+    GET /stars/hemisphere?hemisphere=N             findStarByHemisphere
+    GET /stars/supernovas                          findSupernovas
+    GET /stars/constellation?name=Orion            stars of a constellation ordered by greek letter
+    GET /stars/cone?ra=83.8&dec=-5.4&radius=2      stars within radius from a position (degrees)
+    GET /stars                                     all stars
+    GET /star?name=ABC1234 or /star?catalogName=alpha%20Orion
+    GET /health                                    number of stars and catalog version
+    GET /metrics                                   latencies and counters as text (see Metrics.report)
+
+    Every list accepts limit=<n> (at most n stars, e.g. for paging through big results).
+    Lists are JSON arrays of stars (same objects as "export json"), /star returns one object
+    (404 when there's no such star), bad parameters give 400 with {"error": "..."}.
+    Every request runs on its own virtual thread and only reads the in-memory catalog
+    (snapshots and indexes under the read lock), so requests don't wait for each other.
+    The response is written to a byte array first and sent with a fixed length.
+ */
+public final class StarServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    // number of waiting connections the OS keeps before refusing new ones
+    private static final int BACKLOG = 4096;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private StarServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    // starts the server on given port (0 = any free port)
+    public static StarServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/stars/distance", json(query -> Star.findStarsAtDistance(number(query, "parsecs"))));
+        server.createContext("/stars/temperature", json(query ->
+                Star.findStarsByTemperature(number(query, "min"), number(query, "max"))));
+        server.createContext("/stars/magnitude", json(query ->
+                Star.findStarsByMagnitude(number(query, "min"), number(query, "max"))));
+        server.createContext("/stars/hemisphere", json(query ->
+                Star.findStarsInHemisphere(Hemisphere.fromString(text(query, "hemisphere")))));
+        server.createContext("/stars/supernovas", json(query -> {
+            requireNoPath(query);
+            return Star.findSupernovaStars();
+        }));
+        server.createContext("/stars/constellation", json(query -> Star.findStarsInConstellation(text(query, "name"))));
+        server.createContext("/stars/cone", json(query ->
+                StarRepository.coneSearch(number(query, "ra"), number(query, "dec"), number(query, "radius"))));
+        server.createContext("/stars", json(query -> {
+            requireNoPath(query);
+            return StarRepository.getStars();
+        }));
+        server.createContext("/star", exchange -> respond(exchange, () -> {
+            Map<String, String> query = parameters(exchange);
+            Star star = query.containsKey("name") ? StarRepository.findByName(query.get("name"))
+                    : StarRepository.findByCatalogName(text(query, "catalogName"));
+            return star == null ? null : Collections.singletonList(star);
+        }, true));
+        server.createContext("/health", exchange -> {
+            send(exchange, 200, ("{\"stars\":" + StarRepository.size() + ",\"version\":" + StarRepository.version() + "}")
+                    .getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/metrics", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            byte[] body = Metrics.report().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return new StarServer(server, executor);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // stops accepting requests, waits at most delaySeconds for running ones
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    // REQUESTS
+
+    // search of a list of stars from query parameters
+    private interface Search {
+        List<Star> find(Map<String, String> query);
+    }
+
+    private interface Result {
+        List<Star> get();
+    }
+
+    private static HttpHandler json(Search search) {
+        return exchange -> respond(exchange, () -> {
+            Map<String, String> query = parameters(exchange);
+            String limit = query.remove("limit");
+            List<Star> found = search.find(query);
+            if (limit != null) {
+                int maxStars = (int) number(Map.of("limit", limit), "limit");
+                if (maxStars < 0) {
+                    throw new IllegalArgumentException("Limit can't be negative");
+                }
+                found = found.subList(0, Math.min(maxStars, found.size()));
+            }
+            return found;
+        }, false);
+    }
+
+    // runs a search and sends found stars as a JSON array (or one object when single is true)
+    private static void respond(HttpExchange exchange, Result result, boolean single) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Only GET requests are supported");
+                return;
+            }
+            List<Star> stars = result.get();
+            if (stars == null) {
+                sendError(exchange, 404, "Star not found");
+                return;
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream(single ? 512 : 256 + stars.size() * 400);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), 8192);
+            StarExporter exporter = new StarExporter(writer, ExportFormat.JSON);
+            if (single) {
+                exporter.write(stars.get(0));
+            } else {
+                exporter.exportJsonArray(stars);
+            }
+            exporter.flush();
+            send(exchange, 200, body.toByteArray());
+        }
+        catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        }
+        catch (RuntimeException e) {
+            Metrics.ERRORS.increment();
+            sendError(exchange, 500, "Internal error: " + e);
+            e.printStackTrace();
+        }
+        finally {
+            exchange.close();
+            Metrics.HTTP_REQUEST.recordSince(start);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, ("{\"error\":\"" + escape(message) + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // PARAMETERS
+
+    private static Map<String, String> parameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        // contexts match by prefix, the rest of the path is kept to reject e.g. /stars/unknown
+        String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+        if (!path.isEmpty() && !path.equals("/")) {
+            parameters.put("", path);
+        }
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static void requireNoPath(Map<String, String> query) {
+        if (query.containsKey("")) {
+            throw new IllegalArgumentException("Unknown search: /stars" + query.get(""));
+        }
+    }
+
+    private static String text(Map<String, String> query, String name) {
+        requireNoPath(query);
+        String value = query.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static double number(Map<String, String> query, String name) {
+        String value = text(query, name);
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number: " + value);
+        }
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
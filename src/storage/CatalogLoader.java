@@ -0,0 +1,221 @@
+package src.storage;
+
+import src.metrics.DeserializeEvent;
+import src.metrics.Metrics;
+import src.models.Star;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Loading of all stars at startup, split between several threads
+/*
+    - catalog file: the records are read with one big read, then decoded in parallel chunks
+      of DECODE_CHUNK records (bounded pool with one thread per core)
+    - old .obj files (Java serialization, read only to move them to the catalog file): files are sorted by name and split into slices of OBJ_SLICE files,
+      every slice is read and deserialized by its own virtual thread (reading files mostly waits for the disk)
+    Every chunk/slice also counts stars of every constellation and collects errors (a broken record
+    or file doesn't stop loading). Results of chunks are joined in their order, so stars are always
+    in the same order as a sequential load would give.
+ */
+public final class CatalogLoader {
+
+    private static final int DECODE_CHUNK = 1 << 15;
+    private static final int OBJ_SLICE = 64;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    // old .obj files may only contain a star and its parts - Java deserialization of any other class is refused,
+    // so a crafted file can't create objects of other classes (the whole file is only a broken record then)
+    private static final ObjectInputFilter OBJ_FILE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=5;maxrefs=32;maxbytes=16384;maxarray=0;"
+            + "src.models.Star;src.models.Declination;src.models.RightAscension;src.models.Constellation;"
+            + "src.utils.Hemisphere;java.lang.Enum;!*");
+
+    private CatalogLoader() {
+    }
+
+    // loaded stars, number of stars in every constellation and errors (one message per broken record/file)
+    public static final class Result {
+        public static final Result EMPTY = new Result(List.of(), Map.of(), List.of());
+
+        private final List<Star> stars;
+        private final Map<String, Integer> constellationCounts;
+        private final List<String> errors;
+
+        private Result(List<Star> stars, Map<String, Integer> constellationCounts, List<String> errors) {
+            this.stars = stars;
+            this.constellationCounts = constellationCounts;
+            this.errors = errors;
+        }
+
+        public List<Star> getStars() {
+            return stars;
+        }
+
+        public Map<String, Integer> getConstellationCounts() {
+            return constellationCounts;
+        }
+
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        // prints a summary of errors instead of a stack trace per file
+        public void printErrors(String source) {
+            if (errors.isEmpty()) {
+                return;
+            }
+            System.err.println("Error: Couldn't load " + errors.size() + " stars from " + source + ":");
+            for (int i = 0; i < Math.min(errors.size(), 10); i++) {
+                System.err.println("  " + errors.get(i));
+            }
+            if (errors.size() > 10) {
+                System.err.println("  ... and " + (errors.size() - 10) + " more");
+            }
+        }
+
+        private void add(Star star) {
+            stars.add(star);
+            constellationCounts.merge(star.getConstellation(), 1, Integer::sum);
+        }
+
+        // adds results of the next chunk
+        private void addAll(Result chunk) {
+            stars.addAll(chunk.stars);
+            chunk.constellationCounts.forEach((name, count) -> constellationCounts.merge(name, count, Integer::sum));
+            errors.addAll(chunk.errors);
+        }
+    }
+
+    // CATALOG FILE
+
+    // decodes live records of a buffer with slotCount records
+    static Result decode(PackedCatalog catalog, ByteBuffer records, int slotCount) {
+        if (slotCount <= DECODE_CHUNK || THREADS == 1) {
+            return decodeChunk(catalog, records, 0, slotCount);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Result>> chunks = new ArrayList<>();
+            for (int from = 0; from < slotCount; from += DECODE_CHUNK) {
+                int start = from;
+                int end = Math.min(slotCount, from + DECODE_CHUNK);
+                chunks.add(pool.submit(() -> decodeChunk(catalog, records, start, end)));
+            }
+            return join(chunks);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Result decodeChunk(PackedCatalog catalog, ByteBuffer records, int from, int to) {
+        DeserializeEvent event = new DeserializeEvent();
+        event.begin();
+        Result chunk = empty(to - from);
+        for (int slot = from; slot < to; slot++) {
+            int offset = slot * PackedCatalog.RECORD_SIZE;
+            if (records.get(offset + PackedCatalog.FLAGS) != PackedCatalog.LIVE) {
+                continue;
+            }
+            try {
+                chunk.add(catalog.decode(records, offset));
+            } catch (RuntimeException e) {
+                chunk.errors.add("record " + slot + ": " + e);
+            }
+        }
+        Metrics.RECORDS_READ.add(chunk.stars.size());
+        Metrics.DESERIALIZATION_FAILURES.add(chunk.errors.size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = catalog.getFile().getFileName() + " records " + from + "-" + (to - 1);
+            event.stars = chunk.stars.size();
+            event.failures = chunk.errors.size();
+            event.bytes = (long) (to - from) * PackedCatalog.RECORD_SIZE;
+            event.commit();
+        }
+        return chunk;
+    }
+
+    // OLD .obj FILES
+
+    // reads all .obj files of a directory (in file name order)
+    public static Result loadObjFiles(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".obj"));
+        if (files == null || files.length == 0) {
+            return empty(0);
+        }
+        Arrays.sort(files);
+
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Result>> slices = new ArrayList<>();
+            for (int from = 0; from < files.length; from += OBJ_SLICE) {
+                File[] slice = Arrays.copyOfRange(files, from, Math.min(files.length, from + OBJ_SLICE));
+                slices.add(threads.submit(() -> readObjFiles(slice)));
+            }
+            return join(slices);
+        }
+    }
+
+    private static Result readObjFiles(File[] files) {
+        Result slice = empty(files.length);
+        for (File file : files) {
+            DeserializeEvent event = new DeserializeEvent();
+            event.begin();
+            int failures = slice.errors.size();
+            try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                ois.setObjectInputFilter(OBJ_FILE_FILTER);
+                slice.add((Star) ois.readObject());
+            } catch (Exception e) {
+                slice.errors.add(file.getName() + ": " + e);
+            }
+            Metrics.FILES_READ.increment();
+            Metrics.BYTES_READ.add(file.length());
+            event.end();
+            if (event.shouldCommit()) {
+                event.source = file.getName();
+                event.failures = slice.errors.size() - failures;
+                event.stars = 1 - event.failures;
+                event.bytes = file.length();
+                event.commit();
+            }
+        }
+        Metrics.RECORDS_READ.add(slice.stars.size());
+        Metrics.DESERIALIZATION_FAILURES.add(slice.errors.size());
+        return slice;
+    }
+
+    // HELPERS
+
+    private static Result empty(int capacity) {
+        return new Result(new ArrayList<>(capacity), new HashMap<>(), new ArrayList<>());
+    }
+
+    private static Result join(List<Future<Result>> chunks) {
+        Result result = empty(0);
+        for (Future<Result> chunk : chunks) {
+            try {
+                result.addAll(chunk.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.errors.add("loading was interrupted");
+                break;
+            } catch (ExecutionException e) {
+                result.errors.add(String.valueOf(e.getCause()));
+            }
+        }
+        return result;
+    }
+}
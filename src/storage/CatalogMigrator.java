@@ -0,0 +1,44 @@
+package src.storage;
+
+import src.models.Star;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+// One-shot migration of the old storage (one .obj file per star) into a packed catalog file
+public final class CatalogMigrator {
+
+    private CatalogMigrator() {
+    }
+
+    // method that copies all stars from .obj files into the catalog file, returns number of migrated stars
+    // the .obj files are left untouched, they can be deleted once the catalog file works
+    public static int migrate(File objDirectory, Path catalogFile) throws IOException {
+        if (Files.exists(catalogFile) && Files.size(catalogFile) > 0) {
+            throw new IOException("Catalog file already exists: " + catalogFile);
+        }
+
+        List<Star> stars = Star.loadStarsFromObjFiles(objDirectory);
+        try (PackedCatalog catalog = PackedCatalog.open(catalogFile)) {
+            for (Star star : stars) {
+                catalog.put(star);
+            }
+            catalog.sync();
+        }
+        return stars.size();
+    }
+
+    // usage: CatalogMigrator <directory with .obj files> <catalog file>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: CatalogMigrator <directory with .obj files> <catalog file>");
+            return;
+        }
+        int migrated = migrate(new File(args[0]), Paths.get(args[1]));
+        System.out.println("Migrated " + migrated + " stars to " + args[1]);
+    }
+}
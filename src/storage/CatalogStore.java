@@ -0,0 +1,410 @@
+package src.storage;
+
+import src.metrics.LogCommitEvent;
+import src.metrics.Metrics;
+import src.models.Star;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Catalog file + write-ahead log with group commit
+/*
+    Saving/deleting a star adds an entry to the open batch and waits until the batch is committed:
+    all its entries are appended to the log with a single fsync, and only then written to the catalog
+    file (without fsync). The first waiting thread commits the batch if no other batch is being committed;
+    changes saved by other threads while the log is forced to disk go to the next batch, which is committed
+    right after it (group commit) - so a save returns only when its change is durable.
+    A batch holds at most batchSize entries, a full batch is committed before more entries are added.
+    Checkpoint (every checkpointMillis, and when closing) forces the catalog file to disk and empties the log.
+    On open, entries left in the log by a crash are replayed into the catalog file.
+
+    Asynchronous commit (opt-in): saving doesn't wait, batches are committed in the background every
+    batchDelayMillis (or when they're full) - faster, but changes of the last batchDelayMillis can be lost in a crash.
+
+    Settings can be changed with system properties:
+    starmanager.wal.batchSize, starmanager.wal.checkpointMillis,
+    starmanager.wal.async (true = asynchronous commit), starmanager.wal.batchDelayMillis (only with async commit)
+ */
+public class CatalogStore implements Closeable {
+
+    public static final int DEFAULT_BATCH_SIZE = Integer.getInteger("starmanager.wal.batchSize", 256);
+    public static final long DEFAULT_BATCH_DELAY_MILLIS = Long.getLong("starmanager.wal.batchDelayMillis", 20);
+    public static final long DEFAULT_CHECKPOINT_MILLIS = Long.getLong("starmanager.wal.checkpointMillis", 60_000);
+    public static final boolean DEFAULT_ASYNC_COMMIT = Boolean.getBoolean("starmanager.wal.async");
+
+    private static final int IMPORT_BATCH_SIZE = 8192;
+
+    private final PackedCatalog catalog;
+    private final WriteAheadLog log;
+    private final int batchSize;
+    private final boolean asyncCommit;
+    // guards everything below, the catalog file and the log (released only while a batch is forced to disk)
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchCommitted = lock.newCondition();
+    // batch that gets new entries
+    private Batch open;
+    // buffer of the batch being committed is reused by the batch opened after it
+    private ByteBuffer spareBuffer;
+    private boolean committing;
+    private final ScheduledExecutorService scheduler;
+    private boolean closed;
+
+    // changes committed together (one append to the log)
+    private static final class Batch {
+        final ByteBuffer buffer;
+        final List<WriteAheadLog.Entry> entries = new ArrayList<>();
+        boolean committed;
+        IOException failure;
+
+        Batch(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    private CatalogStore(PackedCatalog catalog, WriteAheadLog log, int batchSize, long batchDelayMillis,
+                         long checkpointMillis, boolean asyncCommit) {
+        this.catalog = catalog;
+        this.log = log;
+        this.batchSize = batchSize;
+        this.asyncCommit = asyncCommit;
+        this.open = new Batch(ByteBuffer.allocate(batchSize * WriteAheadLog.maxEntrySize()));
+        this.spareBuffer = ByteBuffer.allocate(batchSize * WriteAheadLog.maxEntrySize());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (asyncCommit) {
+            scheduler.scheduleWithFixedDelay(this::commitInBackground, batchDelayMillis, batchDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        scheduler.scheduleWithFixedDelay(this::checkpointInBackground, checkpointMillis, checkpointMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // opens catalog with default settings
+    public static CatalogStore open(Path catalogFile, Path logFile) throws IOException {
+        return open(catalogFile, logFile, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_DELAY_MILLIS, DEFAULT_CHECKPOINT_MILLIS,
+                DEFAULT_ASYNC_COMMIT);
+    }
+
+    // opens catalog file and its log, replays changes that weren't checkpointed before the last crash
+    // (batchDelayMillis is used only with asynchronous commit)
+    public static CatalogStore open(Path catalogFile, Path logFile, int batchSize, long batchDelayMillis,
+                                    long checkpointMillis, boolean asyncCommit) throws IOException {
+        if (batchSize < 1 || batchDelayMillis < 1 || checkpointMillis < 1) {
+            throw new IllegalArgumentException("Batch size, batch delay and checkpoint interval must be positive");
+        }
+        PackedCatalog catalog = PackedCatalog.open(catalogFile);
+        WriteAheadLog log = null;
+        try {
+            log = WriteAheadLog.open(logFile);
+            recover(catalog, log);
+        } catch (IOException e) {
+            if (log != null) {
+                log.close();
+            }
+            catalog.close();
+            throw e;
+        }
+        return new CatalogStore(catalog, log, batchSize, batchDelayMillis, checkpointMillis, asyncCommit);
+    }
+
+    private static void recover(PackedCatalog catalog, WriteAheadLog log) throws IOException {
+        List<WriteAheadLog.Entry> entries = log.readEntries();
+        if (entries.isEmpty()) {
+            log.truncate(); // there may be a broken batch left
+            return;
+        }
+        for (WriteAheadLog.Entry entry : entries) {
+            apply(catalog, entry);
+        }
+        catalog.sync();
+        log.truncate();
+        System.out.println("Recovered " + entries.size() + " catalog changes from " + log.getFile());
+    }
+
+    public Path getFile() {
+        return catalog.getFile();
+    }
+
+    // method that reads all stars (changes that aren't committed yet are not in the catalog file)
+    public List<Star> readAll() throws IOException {
+        lock.lock();
+        try {
+            commit();
+            return catalog.readAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // method that loads all stars, counts of stars in constellations and errors of broken records
+    public CatalogLoader.Result load() throws IOException {
+        lock.lock();
+        try {
+            commit();
+            return catalog.load();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // saves a star (returns when the change is durable, unless commit is asynchronous)
+    public void put(Star star) throws IOException {
+        lock.lock();
+        try {
+            catalog.constellationId(star.getConstellation()); // checks the constellation before the change is logged
+            awaitCommit(add(WriteAheadLog.Entry.put(star)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // adds a constellation to the catalog dictionary before its stars are saved
+    // (throws IllegalStateException/IllegalArgumentException if the catalog can't store it)
+    public void addConstellation(String constellationName) throws IOException {
+        lock.lock();
+        try {
+            catalog.constellationId(constellationName);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // saves many stars at once (bulk import): they're logged in big batches, one fsync per IMPORT_BATCH_SIZE stars
+    public void putAll(List<Star> stars) throws IOException {
+        lock.lock();
+        try {
+            commit();
+            ByteBuffer importBatch = ByteBuffer.allocate(IMPORT_BATCH_SIZE * WriteAheadLog.maxEntrySize());
+            for (int from = 0; from < stars.size(); from += IMPORT_BATCH_SIZE) {
+                List<Star> part = stars.subList(from, Math.min(stars.size(), from + IMPORT_BATCH_SIZE));
+                for (Star star : part) {
+                    catalog.constellationId(star.getConstellation());
+                    WriteAheadLog.encode(WriteAheadLog.Entry.put(star), importBatch);
+                }
+                importBatch.flip();
+                LogCommitEvent event = new LogCommitEvent();
+                event.begin();
+                event.bytes = importBatch.remaining();
+                log.append(importBatch);
+                importBatch.clear();
+                for (Star star : part) {
+                    catalog.put(star);
+                }
+                event.end();
+                if (event.shouldCommit()) {
+                    event.entries = part.size();
+                    event.commit();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // deletes a star (returns when the change is durable, unless commit is asynchronous)
+    public void delete(String name) throws IOException {
+        delete(name, List.of());
+    }
+
+    // deletes a star and saves changed stars (e.g. renamed stars of its constellation) in the same batch,
+    // so all of them take one commit
+    public void delete(String name, List<Star> changed) throws IOException {
+        lock.lock();
+        try {
+            for (Star star : changed) {
+                catalog.constellationId(star.getConstellation());
+            }
+            Batch batch = add(WriteAheadLog.Entry.delete(name));
+            for (Star star : changed) {
+                Batch next = add(WriteAheadLog.Entry.put(star));
+                if (next != batch) {
+                    awaitCommit(batch); // only when the changes didn't fit into one batch
+                    batch = next;
+                }
+            }
+            awaitCommit(batch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // method that commits changes saved so far: waits for the batch being committed, then commits the open one
+    public void commit() throws IOException {
+        lock.lock();
+        try {
+            commitOpenBatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // method that forces the catalog file to disk and empties the log
+    public void checkpoint() throws IOException {
+        lock.lock();
+        try {
+            commit();
+            catalog.sync();
+            log.truncate();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            scheduler.shutdownNow();
+            try {
+                checkpoint();
+            } finally {
+                log.close();
+                catalog.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // adds an entry to the open batch (a full batch is committed first), returns the batch it was added to
+    // (called with the lock held)
+    private Batch add(WriteAheadLog.Entry entry) throws IOException {
+        if (closed) {
+            throw new IOException("Catalog is closed: " + catalog.getFile());
+        }
+        while (open.entries.size() >= batchSize) {
+            commitOpenBatch();
+        }
+        Batch batch = open;
+        WriteAheadLog.encode(entry, batch.buffer);
+        batch.entries.add(entry);
+        if (asyncCommit && batch.entries.size() >= batchSize) {
+            commitOpenBatch();
+        }
+        return batch;
+    }
+
+    // waits until a batch is committed: the waiting thread commits it itself when no other batch is being committed
+    // (with asynchronous commit it returns at once) - called with the lock held
+    private void awaitCommit(Batch batch) throws IOException {
+        if (asyncCommit) {
+            return;
+        }
+        while (!batch.committed) {
+            if (committing) {
+                batchCommitted.awaitUninterruptibly();
+            } else {
+                commitOpenBatch(); // a batch that isn't committed and isn't being committed is the open one
+            }
+        }
+        if (batch.failure != null) {
+            throw new IOException("Couldn't commit changes to " + log.getFile(), batch.failure);
+        }
+    }
+
+    // commits the open batch: one fsync of the log, then changes are written to the catalog file
+    // (called with the lock held, which is released while the log is forced to disk - other threads add their
+    // changes to the next batch meanwhile)
+    private void commitOpenBatch() throws IOException {
+        while (committing) {
+            batchCommitted.awaitUninterruptibly();
+        }
+        if (open.entries.isEmpty()) {
+            return;
+        }
+        Batch batch = open;
+        open = new Batch(spareBuffer);
+        spareBuffer = null;
+        committing = true;
+
+        long start = System.nanoTime();
+        LogCommitEvent event = new LogCommitEvent();
+        event.begin();
+        try {
+            batch.buffer.flip();
+            event.bytes = batch.buffer.remaining();
+            // the lock is released completely (callers like checkpoint() hold it more than once)
+            int holds = lock.getHoldCount();
+            for (int i = 0; i < holds; i++) {
+                lock.unlock();
+            }
+            try {
+                log.append(batch.buffer);
+            } finally {
+                for (int i = 0; i < holds; i++) {
+                    lock.lock();
+                }
+            }
+            for (WriteAheadLog.Entry entry : batch.entries) {
+                apply(catalog, entry);
+            }
+        } catch (IOException e) {
+            batch.failure = e;
+            throw e;
+        } finally {
+            batch.buffer.clear();
+            spareBuffer = batch.buffer;
+            batch.committed = true;
+            committing = false;
+            batchCommitted.signalAll();
+        }
+        event.entries = batch.entries.size();
+        Metrics.LOG_COMMIT.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+
+    private static void apply(PackedCatalog catalog, WriteAheadLog.Entry entry) throws IOException {
+        if (entry.getOperation() == WriteAheadLog.PUT) {
+            catalog.put(entry.getStar());
+        } else {
+            catalog.delete(entry.getName());
+        }
+    }
+
+    private void commitInBackground() {
+        lock.lock();
+        try {
+            if (!closed) {
+                commit();
+            }
+        } catch (IOException e) {
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Couldn't commit changes to " + log.getFile());
+            e.printStackTrace();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkpointInBackground() {
+        lock.lock();
+        try {
+            if (!closed) {
+                checkpoint();
+            }
+        } catch (IOException e) {
+            Metrics.ERRORS.increment();
+            System.err.println("Error: Couldn't checkpoint catalog file " + catalog.getFile());
+            e.printStackTrace();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package src.storage;
+
+import src.index.SkyIndex;
+import src.models.Star;
+import src.utils.GreekAlphabet;
+import src.utils.Hemisphere;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+import static src.storage.PackedCatalog.*;
+
+// Read-only, memory-mapped access to the catalog file (see PackedCatalog for the file layout)
+/*
+    Opening doesn't read any records, so it takes the same time no matter how big the catalog is.
+    Records are read through a StarView straight from the mapped file while scanning.
+    Changes written by PackedCatalog are visible here, new records are mapped on the next scan.
+    Lookups by name, catalog name and constellation use a MappedIndex (slot numbers only) built on the first
+    lookup, and again on the first lookup after the file was changed (its change count is in the header).
+ */
+public class MappedCatalog implements Closeable {
+
+    // records are mapped in segments, a single mapping can't be bigger than 2 GB
+    static final int SEGMENT_RECORDS = 1 << 24;
+
+    private static final GreekAlphabet[] GREEK_LETTERS = GreekAlphabet.values();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header; // header + constellation dictionary
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int mappedSlots;
+    private final List<String> dictionary = new ArrayList<>();
+    private volatile MappedIndex index;
+
+    private MappedCatalog(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.header = channel.map(FileChannel.MapMode.READ_ONLY, 0, DATA_OFFSET);
+        if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+            throw new IOException("Not a star catalog file (or unsupported version): " + file);
+        }
+    }
+
+    public static MappedCatalog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedCatalog catalog = new MappedCatalog(file, channel);
+            catalog.refresh();
+            return catalog;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // number of record slots in the file (stars + free slots)
+    public int slotCount() {
+        return header.getInt(HEADER_SLOT_COUNT);
+    }
+
+    // constellation name stored under given dictionary id
+    String constellationName(int id) {
+        return dictionary.get(id);
+    }
+
+    // all stars in the catalog (one StarView is reused for every record)
+    public Iterable<StarView> records() {
+        int slots = refreshOrThrow();
+        return () -> new RecordIterator(slots);
+    }
+
+    // LOOKUPS (through the index)
+
+    // number of stars in the catalog
+    public int size() {
+        return index().size();
+    }
+
+    // star with given name (e.g. ABC1234), null if there's no such star
+    public Star findByName(String name) {
+        int packedName = Star.packName(name.trim().toUpperCase(Locale.ROOT));
+        int slot = packedName < 0 ? -1 : index().slotOf(packedName);
+        return slot < 0 ? null : star(slot);
+    }
+
+    // star with given catalog name (e.g. alpha Orion, case insensitive), null if there's no such star
+    public Star findByCatalogName(String catalogName) {
+        String trimmed = catalogName.trim();
+        int space = trimmed.indexOf(' ');
+        if (space < 0) {
+            return null;
+        }
+        String letter = trimmed.substring(0, space);
+        for (GreekAlphabet greekLetter : GREEK_LETTERS) {
+            if (greekLetter.name().equalsIgnoreCase(letter)) {
+                MappedIndex current = index();
+                int[] members = current.members(constellationId(trimmed.substring(space + 1), true));
+                int greekOrdinal = greekLetter.ordinal();
+                if (greekOrdinal < members.length && greekOrdinal(members[greekOrdinal]) == greekOrdinal) {
+                    return star(members[greekOrdinal]);
+                }
+                // only in catalogs with a missing or doubled letter (e.g. synthetic catalogs of benchmarks)
+                for (int slot : members) {
+                    if (greekOrdinal(slot) == greekOrdinal) {
+                        return star(slot);
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // stars of a constellation ordered by greek letter
+    public List<Star> getConstellationMembers(String constellationName, boolean ignoreCase) {
+        int[] slots = index().members(constellationId(constellationName, ignoreCase));
+        List<Star> members = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            members.add(star(slot));
+        }
+        return members;
+    }
+
+    // SPATIAL SEARCHES (scans of all records, there's no spatial index of the file)
+
+    // stars within radius from given position (right ascension, declination and radius in degrees)
+    public List<Star> coneSearch(double ra, double dec, double radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius can't be negative");
+        }
+        double[] center = SkyIndex.unitVector(ra, dec);
+        double minDot = radius >= 180 ? Double.NEGATIVE_INFINITY : Math.cos(Math.toRadians(radius));
+        List<Star> found = new ArrayList<>();
+        for (StarView star : records()) {
+            if (dot(star, center) >= minDot) {
+                found.add(star.toStar());
+            }
+        }
+        return found;
+    }
+
+    // stars with raMin <= right ascension <= raMax and decMin <= declination <= decMax (all in degrees),
+    // same box as SkyIndex.boxSearch: stars of the cone around it are checked with their exact coordinates
+    public List<Star> boxSearch(double raMin, double raMax, double decMin, double decMax) {
+        SkyIndex.Box box = new SkyIndex.Box(raMin, raMax, decMin, decMax);
+        List<Star> found = new ArrayList<>();
+        for (Star star : coneSearch(box.getRaCenter(), box.getDecCenter(), box.getRadius())) {
+            if (box.contains(star.getRaDegrees(), star.getDecDegrees())) {
+                found.add(star);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // index of the current version of the file (built again if the file was changed since the last one)
+    private MappedIndex index() {
+        MappedIndex current = index;
+        if (current == null || current.getChangeCount() != changeCount()) {
+            synchronized (this) {
+                current = index;
+                long changeCount = changeCount();
+                if (current == null || current.getChangeCount() != changeCount) {
+                    int slots = refreshOrThrow();
+                    current = MappedIndex.build(this, changeCount, slots, dictionary.size());
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private long changeCount() {
+        return header.getLong(HEADER_CHANGE_COUNT);
+    }
+
+    // mapped segment with the record of a slot, and offset of the record in it
+    ByteBuffer segment(int slot) {
+        return segments.get(slot / SEGMENT_RECORDS);
+    }
+
+    static int offset(int slot) {
+        return (slot % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    private Star star(int slot) {
+        StarView view = new StarView(this);
+        view.moveTo(segment(slot), offset(slot));
+        return view.toStar();
+    }
+
+    private int greekOrdinal(int slot) {
+        return segment(slot).get(offset(slot) + GREEK);
+    }
+
+    // dictionary id of a constellation (an exact match first if names are case insensitive), -1 if it isn't known
+    private int constellationId(String name, boolean ignoreCase) {
+        int id = dictionary.indexOf(name);
+        if (id >= 0 || !ignoreCase) {
+            return id;
+        }
+        for (int candidate = 0; candidate < dictionary.size(); candidate++) {
+            if (dictionary.get(candidate).equalsIgnoreCase(name)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    // dot product of the unit vector of a star with a unit vector (see SkyIndex)
+    private static double dot(StarView star, double[] vector) {
+        double ra = Math.toRadians(15 * (star.getRightAscensionHours() + star.getRightAscensionMinutes() / 60.0
+                + star.getRightAscensionSeconds() / 3600.0));
+        double dec = Math.toRadians(Math.abs(star.getDeclinationDegrees()) + star.getDeclinationMinutes() / 60.0
+                + star.getDeclinationSeconds() / 3600.0);
+        if (star.getHemisphere() == Hemisphere.SOUTHERN) {
+            dec = -dec;
+        }
+        double cosDec = Math.cos(dec);
+        return cosDec * Math.cos(ra) * vector[0] + cosDec * Math.sin(ra) * vector[1] + Math.sin(dec) * vector[2];
+    }
+
+    private int refreshOrThrow() {
+        try {
+            return refresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't map catalog file: " + file, e);
+        }
+    }
+
+    // maps records added since the last scan and reads new constellations from the dictionary,
+    // returns the number of mapped slots
+    private synchronized int refresh() throws IOException {
+        int dictionarySize = header.getInt(HEADER_DICTIONARY_SIZE);
+        for (int id = dictionary.size(); id < dictionarySize; id++) {
+            int offset = HEADER_SIZE + id * DICTIONARY_ENTRY_SIZE;
+            byte[] bytes = new byte[Byte.toUnsignedInt(header.get(offset))];
+            header.get(offset + 1, bytes);
+            dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        int slots = slotCount();
+        if (slots <= mappedSlots) {
+            return mappedSlots;
+        }
+        // last segment is only partly mapped - map it again together with new segments
+        int segment = mappedSlots / SEGMENT_RECORDS;
+        while (segments.size() > segment) {
+            segments.remove(segments.size() - 1);
+        }
+        for (; (long) segment * SEGMENT_RECORDS < slots; segment++) {
+            long firstSlot = (long) segment * SEGMENT_RECORDS;
+            long records = Math.min(SEGMENT_RECORDS, slots - firstSlot);
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, DATA_OFFSET + firstSlot * RECORD_SIZE, records * RECORD_SIZE));
+        }
+        mappedSlots = slots;
+        return slots;
+    }
+
+    // iterator that moves a single StarView over records, skipping free slots
+    private class RecordIterator implements Iterator<StarView> {
+        private final StarView view = new StarView(MappedCatalog.this);
+        private final int slots;
+        private int slot = -1;
+        private int next = -1;
+
+        RecordIterator(int slots) {
+            this.slots = slots;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next > slot) {
+                return true;
+            }
+            for (int candidate = slot + 1; candidate < slots; candidate++) {
+                if (segment(candidate).get(offset(candidate) + FLAGS) == LIVE) {
+                    next = candidate;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public StarView next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            slot = next;
+            view.moveTo(segment(slot), offset(slot));
+            return view;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package src.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static src.storage.PackedCatalog.*;
+
+// Lookups of a MappedCatalog: record slot by star name and record slots of every constellation
+/*
+    Built from the mapped records (two scans), only slot numbers are kept on the heap (no star objects):
+    - names: open addressing hash table of packed names (see Star.packName) with the slots in a parallel array,
+      at most half of the table is used
+    - members: slots of the stars of every constellation (by dictionary id) ordered by greek letter
+    An index is never changed: it belongs to one change count of the catalog file (see PackedCatalog),
+    MappedCatalog builds a new one when the file was changed after it.
+ */
+final class MappedIndex {
+
+    private static final int FREE = -1;
+    private static final int[] NO_SLOTS = new int[0];
+
+    private final long changeCount;
+    private final int[] names;
+    private final int[] slots;
+    private final int mask;
+    private final int size;
+    private final int[][] members;
+
+    private MappedIndex(long changeCount, int size, int[][] members) {
+        this.changeCount = changeCount;
+        int capacity = Integer.highestOneBit(Math.max(8, size) * 2 - 1) << 1;
+        this.names = new int[capacity];
+        Arrays.fill(names, FREE);
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.size = size;
+        this.members = members;
+    }
+
+    // index of the first slotCount records of the catalog (the change count is read before the records)
+    static MappedIndex build(MappedCatalog catalog, long changeCount, int slotCount, int dictionarySize) {
+        // first scan counts stars of every constellation, the second one fills the tables
+        int size = 0;
+        int[] counts = new int[dictionarySize];
+        for (int slot = 0; slot < slotCount; slot++) {
+            ByteBuffer segment = catalog.segment(slot);
+            int offset = MappedCatalog.offset(slot);
+            if (segment.get(offset + FLAGS) == LIVE) {
+                int id = Byte.toUnsignedInt(segment.get(offset + CONSTELLATION));
+                size++;
+                if (id < dictionarySize) {
+                    counts[id]++;
+                }
+            }
+        }
+
+        // slots of a constellation are sorted as greek letter << 32 | slot (stars with the same letter keep file order)
+        long[][] keys = new long[dictionarySize][];
+        for (int id = 0; id < dictionarySize; id++) {
+            keys[id] = new long[counts[id]];
+            counts[id] = 0;
+        }
+        int[][] members = new int[dictionarySize][];
+        MappedIndex index = new MappedIndex(changeCount, size, members);
+        int indexed = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            ByteBuffer segment = catalog.segment(slot);
+            int offset = MappedCatalog.offset(slot);
+            if (segment.get(offset + FLAGS) != LIVE) {
+                continue;
+            }
+            // a record added by a change made during the scans is left out, the change count
+            // is different by then, so the next lookup builds the index again
+            int name = packedName(segment, offset);
+            if (name >= 0 && indexed < size) {
+                index.put(name, slot);
+                indexed++;
+            }
+            int id = Byte.toUnsignedInt(segment.get(offset + CONSTELLATION));
+            if (id < dictionarySize && counts[id] < keys[id].length) {
+                keys[id][counts[id]++] = (long) Byte.toUnsignedInt(segment.get(offset + GREEK)) << 32 | slot;
+            }
+        }
+        for (int id = 0; id < dictionarySize; id++) {
+            long[] sorted = counts[id] == keys[id].length ? keys[id] : Arrays.copyOf(keys[id], counts[id]);
+            Arrays.sort(sorted);
+            members[id] = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                members[id][i] = (int) sorted[i];
+            }
+        }
+        return index;
+    }
+
+    // change count of the catalog file the index was built for
+    long getChangeCount() {
+        return changeCount;
+    }
+
+    // number of stars
+    int size() {
+        return size;
+    }
+
+    // slot of the star with given packed name, -1 if there's no such star
+    int slotOf(int name) {
+        for (int slot = slot(name); names[slot] != FREE; slot = (slot + 1) & mask) {
+            if (names[slot] == name) {
+                return slots[slot];
+            }
+        }
+        return -1;
+    }
+
+    // slots of the stars of a constellation ordered by greek letter (don't change the array)
+    int[] members(int constellationId) {
+        return constellationId >= 0 && constellationId < members.length ? members[constellationId] : NO_SLOTS;
+    }
+
+    private void put(int name, int recordSlot) {
+        int slot = slot(name);
+        while (names[slot] != FREE && names[slot] != name) {
+            slot = (slot + 1) & mask;
+        }
+        names[slot] = name;
+        slots[slot] = recordSlot;
+    }
+
+    private int slot(int name) {
+        int hash = name * 0x9E3779B9; // packed names are consecutive numbers, multiplying spreads them
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    // same number as Star.packName of the name stored in the record, -1 if it isn't a name of that form
+    private static int packedName(ByteBuffer segment, int offset) {
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = segment.get(offset + NAME + i);
+            if (letter < 'A' || letter > 'Z') {
+                return -1;
+            }
+            packed = packed * 26 + (letter - 'A');
+        }
+        for (int i = 3; i < NAME_LENGTH; i++) {
+            int digit = segment.get(offset + NAME + i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            packed = packed * 10 + (digit - '0');
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,717 @@
+package src.storage;
+
+import src.index.SkyIndex;
+import src.models.ConstellationRegistry;
+import src.models.Declination;
+import src.models.RightAscension;
+import src.models.Star;
+import src.models.StarRecord;
+import src.query.QueryPlanner;
+import src.query.StarAttribute;
+import src.query.StarQuery;
+import src.utils.GreekAlphabet;
+import src.utils.Hemisphere;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// All stars of the catalog kept outside the Java heap (for catalogs too big to keep as Star objects)
+/*
+    Stars are stored in direct buffers (native memory, which the garbage collector doesn't scan or move),
+    so the heap holds only the buffer objects - heap use and GC pauses stay the same however big the catalog is.
+    Every attribute has its own column (values of all stars next to each other, like ColumnarStarStore),
+    columns are split into blocks of BLOCK_ROWS rows and a new block is allocated when the last one is full:
+      8 bytes: apparent/absolute magnitude, distance, temperature, mass, unit vector x/y/z,
+               seconds of declination and right ascension
+      4 bytes: name (see Star.packName) - for a removed star the next row of the free list,
+               next and previous row of the same constellation
+      2 bytes: constellation id (see ConstellationRegistry)
+      1 byte:  flags (FREE/LIVE), greek letter, hemisphere, degrees/minutes of declination, hours/minutes of right ascension
+    Rows of removed stars are kept in a list of free rows and reused by added stars.
+    Stars are found by name with an open addressing hash table of row numbers (also outside the heap).
+    Rows of every constellation are linked into a list (first row and number of rows of every constellation id
+    are on the heap), so catalog names and members of a constellation are found without scanning all stars.
+    Searches check criteria straight on the columns (filters of StarQuery.where get a flyweight Row, like StarView
+    of the mapped catalog file), a Star object is made only for every found star.
+    Not thread safe: StarRepository reads it under the read lock and changes it under the write lock of its indexLock.
+    Memory of the buffers is given back when they're collected (there's no close), it's limited by
+    -XX:MaxDirectMemorySize (by default as much as the maximum heap size).
+ */
+public final class OffHeapCatalog {
+
+    static final int BLOCK_ROWS = 1 << 16;
+    private static final int BLOCK_SHIFT = 16;
+    private static final int ROW_MASK = BLOCK_ROWS - 1;
+
+    // start of every column in a block
+    private static final int APPARENT_MAGNITUDE = 0;
+    private static final int ABSOLUTE_MAGNITUDE = 8 * BLOCK_ROWS;
+    private static final int DISTANCE = 16 * BLOCK_ROWS;
+    private static final int TEMPERATURE = 24 * BLOCK_ROWS;
+    private static final int MASS = 32 * BLOCK_ROWS;
+    private static final int X = 40 * BLOCK_ROWS;
+    private static final int Y = 48 * BLOCK_ROWS;
+    private static final int Z = 56 * BLOCK_ROWS;
+    private static final int DEC_SECONDS = 64 * BLOCK_ROWS;
+    private static final int RA_SECONDS = 72 * BLOCK_ROWS;
+    private static final int NAME = 80 * BLOCK_ROWS;
+    private static final int NEXT_MEMBER = 84 * BLOCK_ROWS;
+    private static final int PREVIOUS_MEMBER = 88 * BLOCK_ROWS;
+    private static final int CONSTELLATION = 92 * BLOCK_ROWS;
+    private static final int FLAGS = 94 * BLOCK_ROWS;
+    private static final int GREEK = 95 * BLOCK_ROWS;
+    private static final int HEMISPHERE = 96 * BLOCK_ROWS;
+    private static final int DEC_DEGREES = 97 * BLOCK_ROWS;
+    private static final int DEC_MINUTES = 98 * BLOCK_ROWS;
+    private static final int RA_HOURS = 99 * BLOCK_ROWS;
+    private static final int RA_MINUTES = 100 * BLOCK_ROWS;
+    // bytes of one star
+    public static final int ROW_SIZE = 101;
+
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+    // empty slot of the name index (slots keep row + 1)
+    private static final int EMPTY = 0;
+
+    private static final GreekAlphabet[] GREEK_LETTERS = GreekAlphabet.values();
+    private static final Hemisphere[] HEMISPHERES = Hemisphere.values();
+
+    // written before rows, so a scan without the lock (records()) always finds the blocks of the rows it sees
+    private volatile ByteBuffer[] blocks = new ByteBuffer[0];
+    private volatile int rows; // used rows (stars + free rows)
+    private int size;
+    private int firstFree = -1;
+    private ByteBuffer nameIndex;
+    private int indexMask;
+    // first row (-1 if none) and number of rows of every constellation (by ConstellationRegistry id)
+    private int[] firstMembers = new int[0];
+    private int[] memberCounts = new int[0];
+
+    public OffHeapCatalog() {
+        resizeIndex(BLOCK_ROWS);
+    }
+
+    // reads all stars of a catalog file (through the mapped file, so the file isn't read into the heap)
+    public static OffHeapCatalog load(Path catalogFile) throws IOException {
+        OffHeapCatalog catalog = new OffHeapCatalog();
+        try (MappedCatalog file = MappedCatalog.open(catalogFile)) {
+            catalog.resizeIndex(file.slotCount());
+            for (StarView star : file.records()) {
+                catalog.put(star.toStar());
+            }
+        }
+        return catalog;
+    }
+
+    // number of stars
+    public int size() {
+        return size;
+    }
+
+    // bytes of native memory used by the columns and the name index
+    public long offHeapBytes() {
+        return (long) blocks.length * BLOCK_ROWS * ROW_SIZE + (long) nameIndex.capacity();
+    }
+
+    // CHANGES
+
+    // adds a star, or replaces the star with the same name
+    public void put(Star star) {
+        int name = star.getPackedName();
+        int constellation = ConstellationRegistry.idOf(star.getConstellation());
+        int row = rowOf(name);
+        if (row < 0) {
+            row = newRow();
+            setInt(NAME, row, name);
+            if ((size + 1) * 2L > indexMask + 1L) {
+                resizeIndex(size + 1);
+            }
+            insert(row);
+            link(row, constellation);
+            size++;
+        } else if (getShort(CONSTELLATION, row) != constellation) {
+            unlink(row);
+            link(row, constellation);
+        }
+        ByteBuffer block = block(row);
+        int index = row & ROW_MASK;
+        block.putDouble(APPARENT_MAGNITUDE + index * 8, star.getApparentMagnitude());
+        block.putDouble(ABSOLUTE_MAGNITUDE + index * 8, star.getAbsoluteMagnitude());
+        block.putDouble(DISTANCE + index * 8, star.getDistance());
+        block.putDouble(TEMPERATURE + index * 8, star.getTemperature());
+        block.putDouble(MASS + index * 8, star.getMass());
+        block.putDouble(X + index * 8, star.getX());
+        block.putDouble(Y + index * 8, star.getY());
+        block.putDouble(Z + index * 8, star.getZ());
+        block.putDouble(DEC_SECONDS + index * 8, star.getDeclinationSeconds());
+        block.putDouble(RA_SECONDS + index * 8, star.getRightAscensionSeconds());
+        block.putShort(CONSTELLATION + index * 2, (short) constellation);
+        block.put(GREEK + index, (byte) star.getGreekOrdinal());
+        block.put(HEMISPHERE + index, (byte) star.getHemisphere().ordinal());
+        block.put(DEC_DEGREES + index, (byte) star.getDeclinationDegrees());
+        block.put(DEC_MINUTES + index, (byte) star.getDeclinationMinutes());
+        block.put(RA_HOURS + index, (byte) star.getRightAscensionHours());
+        block.put(RA_MINUTES + index, (byte) star.getRightAscensionMinutes());
+        block.put(FLAGS + index, LIVE);
+    }
+
+    // removes a star, false if there's no star with this name
+    public boolean remove(String name) {
+        int packedName = Star.packName(name);
+        int row = packedName < 0 ? -1 : rowOf(packedName);
+        if (row < 0) {
+            return false;
+        }
+        delete(row);
+        unlink(row);
+        setByte(FLAGS, row, FREE);
+        setInt(NAME, row, firstFree);
+        firstFree = row;
+        size--;
+        return true;
+    }
+
+    private int newRow() {
+        if (firstFree >= 0) {
+            int row = firstFree;
+            firstFree = getInt(NAME, row);
+            return row;
+        }
+        int row = rows;
+        if (row == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap catalog is full");
+        }
+        ByteBuffer[] current = blocks;
+        if (row >>> BLOCK_SHIFT == current.length) {
+            ByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = ByteBuffer.allocateDirect(BLOCK_ROWS * ROW_SIZE).order(ByteOrder.nativeOrder());
+            blocks = grown;
+        }
+        rows = row + 1;
+        return row;
+    }
+
+    // adds a new row (or a row moved from another constellation) to the list of its constellation
+    private void link(int row, int constellation) {
+        if (constellation >= firstMembers.length) {
+            int length = Math.max(constellation + 1, ConstellationRegistry.size());
+            int grownFrom = firstMembers.length;
+            firstMembers = Arrays.copyOf(firstMembers, length);
+            Arrays.fill(firstMembers, grownFrom, length, -1);
+            memberCounts = Arrays.copyOf(memberCounts, length);
+        }
+        int first = firstMembers[constellation];
+        setInt(NEXT_MEMBER, row, first);
+        setInt(PREVIOUS_MEMBER, row, -1);
+        if (first >= 0) {
+            setInt(PREVIOUS_MEMBER, first, row);
+        }
+        setShort(CONSTELLATION, row, (short) constellation);
+        firstMembers[constellation] = row;
+        memberCounts[constellation]++;
+    }
+
+    // removes a row from the list of its constellation
+    private void unlink(int row) {
+        int constellation = getShort(CONSTELLATION, row);
+        int next = getInt(NEXT_MEMBER, row);
+        int previous = getInt(PREVIOUS_MEMBER, row);
+        if (previous >= 0) {
+            setInt(NEXT_MEMBER, previous, next);
+        } else {
+            firstMembers[constellation] = next;
+        }
+        if (next >= 0) {
+            setInt(PREVIOUS_MEMBER, next, previous);
+        }
+        memberCounts[constellation]--;
+    }
+
+    // first row of a constellation, -1 if it has no stars
+    private int firstMember(int constellation) {
+        return constellation >= 0 && constellation < firstMembers.length ? firstMembers[constellation] : -1;
+    }
+
+    // SEARCHES
+
+    // star with given name, null if there's no such star
+    public Star findByName(String name) {
+        int packedName = Star.packName(name);
+        int row = packedName < 0 ? -1 : rowOf(packedName);
+        return row < 0 ? null : new Row().moveTo(row).toStar();
+    }
+
+    // star with given catalog name (e.g. alpha Orion, case insensitive), null if there's no such star
+    public Star findByCatalogName(String catalogName) {
+        String trimmed = catalogName.trim();
+        int space = trimmed.indexOf(' ');
+        if (space < 0) {
+            return null;
+        }
+        String letter = trimmed.substring(0, space);
+        for (GreekAlphabet greekLetter : GREEK_LETTERS) {
+            if (greekLetter.name().equalsIgnoreCase(letter)) {
+                int constellation = constellationId(trimmed.substring(space + 1), true);
+                for (int row = firstMember(constellation); row >= 0; row = getInt(NEXT_MEMBER, row)) {
+                    if (getByte(GREEK, row) == greekLetter.ordinal()) {
+                        return new Row().moveTo(row).toStar();
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // stars of a constellation ordered by greek letter
+    public List<Star> getConstellationMembers(String constellationName, boolean ignoreCase) {
+        int constellation = constellationId(constellationName, ignoreCase);
+        // rows sorted as greek letter << 32 | row (stars with the same letter keep the order of rows)
+        long[] keys = new long[constellation >= 0 && constellation < memberCounts.length ? memberCounts[constellation] : 0];
+        int count = 0;
+        for (int row = firstMember(constellation); row >= 0; row = getInt(NEXT_MEMBER, row)) {
+            keys[count++] = (long) getByte(GREEK, row) << 32 | row;
+        }
+        Arrays.sort(keys);
+        List<Star> members = new ArrayList<>(keys.length);
+        Row star = new Row();
+        for (long key : keys) {
+            members.add(star.moveTo((int) key).toStar());
+        }
+        return members;
+    }
+
+    // numbers of stars in constellations
+    public Map<String, Integer> constellationCounts() {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int id = 0; id < memberCounts.length; id++) {
+            if (memberCounts[id] > 0) {
+                byName.put(ConstellationRegistry.name(id), memberCounts[id]);
+            }
+        }
+        return byName;
+    }
+
+    // stars found by a query - every star is checked with all criteria (there are no sorted indexes)
+    public List<Star> find(StarQuery query) {
+        boolean ordered = query.getOrder() == null;
+        int stopAt = ordered && query.getLimit() >= 0 ? query.getLimit() : Integer.MAX_VALUE;
+        Criteria criteria = new Criteria(query);
+        List<Star> found = new ArrayList<>();
+        Row star = new Row();
+        for (int row = 0; row < rows && found.size() < stopAt; row++) {
+            if (criteria.matches(row)) {
+                found.add(star.moveTo(row).toStar());
+            }
+        }
+        return QueryPlanner.finish(query, found, ordered);
+    }
+
+    // statistics of an attribute of stars found by a query (a query without a limit doesn't create any stars)
+    public DoubleSummaryStatistics summarize(StarQuery query, StarAttribute attribute) {
+        DoubleSummaryStatistics statistics = new DoubleSummaryStatistics();
+        if (query.getLimit() >= 0) {
+            for (Star star : find(query)) {
+                statistics.accept(attribute.get(star));
+            }
+            return statistics;
+        }
+        Criteria criteria = new Criteria(query);
+        int column = column(attribute);
+        for (int row = 0; row < rows; row++) {
+            if (criteria.matches(row)) {
+                statistics.accept(getDouble(column, row));
+            }
+        }
+        return statistics;
+    }
+
+    // stars within radius from given position (right ascension, declination and radius in degrees)
+    public List<Star> coneSearch(double ra, double dec, double radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius can't be negative");
+        }
+        List<Star> found = new ArrayList<>();
+        Row star = new Row();
+        for (int row : cone(ra, dec, radius)) {
+            found.add(star.moveTo(row).toStar());
+        }
+        return found;
+    }
+
+    // stars with raMin <= right ascension <= raMax and decMin <= declination <= decMax (all in degrees),
+    // same box as SkyIndex.boxSearch: stars of the cone around it are checked with their exact coordinates
+    public List<Star> boxSearch(double raMin, double raMax, double decMin, double decMax) {
+        SkyIndex.Box box = new SkyIndex.Box(raMin, raMax, decMin, decMax);
+        List<Star> found = new ArrayList<>();
+        Row view = new Row();
+        for (int row : cone(box.getRaCenter(), box.getDecCenter(), box.getRadius())) {
+            Star star = view.moveTo(row).toStar();
+            if (box.contains(star.getRaDegrees(), star.getDecDegrees())) {
+                found.add(star);
+            }
+        }
+        return found;
+    }
+
+    // rows of stars within radius (compared as dot products of unit vectors, like SkyIndex)
+    private int[] cone(double ra, double dec, double radius) {
+        double[] center = SkyIndex.unitVector(ra, dec);
+        double minDot = radius >= 180 ? Double.NEGATIVE_INFINITY : Math.cos(Math.toRadians(radius));
+        int[] found = new int[16];
+        int count = 0;
+        int used = rows;
+        for (int row = 0; row < used; row++) {
+            ByteBuffer block = block(row);
+            int index = row & ROW_MASK;
+            if (block.get(FLAGS + index) == LIVE && block.getDouble(X + index * 8) * center[0]
+                    + block.getDouble(Y + index * 8) * center[1] + block.getDouble(Z + index * 8) * center[2] >= minDot) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = row;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    // all stars (one Row is reused for every star)
+    // changes made while iterating may or may not be seen, a star changed at that moment can be read half changed
+    public Iterable<StarRecord> records() {
+        int used = rows;
+        return () -> new Iterator<>() {
+            private final Row star = new Row();
+            private int next = nextLive(0);
+
+            private int nextLive(int row) {
+                while (row < used && !isLive(row)) {
+                    row++;
+                }
+                return row;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < used;
+            }
+
+            @Override
+            public StarRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                star.moveTo(next);
+                next = nextLive(next + 1);
+                return star;
+            }
+        };
+    }
+
+    // criteria of a query checked straight on the columns
+    // (same as StarQuery.matches, which would read values through a Row and iterate over the map of ranges for every star)
+    private final class Criteria {
+        private final StarQuery query;
+        private final int[] columns;
+        private final double[] min;
+        private final double[] max;
+        private final int hemisphere; // -1 = any
+        private final boolean[] constellations; // constellation ids matching the query (case insensitive), null = any
+        private final Row star = new Row();
+
+        Criteria(StarQuery query) {
+            this.query = query;
+            Map<StarAttribute, double[]> ranges = query.getRanges();
+            columns = new int[ranges.size()];
+            min = new double[ranges.size()];
+            max = new double[ranges.size()];
+            int i = 0;
+            for (Map.Entry<StarAttribute, double[]> range : ranges.entrySet()) {
+                columns[i] = column(range.getKey());
+                min[i] = range.getValue()[0];
+                max[i] = range.getValue()[1];
+                i++;
+            }
+            hemisphere = query.getHemisphere() == null ? -1 : query.getHemisphere().ordinal();
+            if (query.getConstellation() == null) {
+                constellations = null;
+            } else {
+                constellations = new boolean[ConstellationRegistry.size()];
+                for (int id = 0; id < constellations.length; id++) {
+                    constellations[id] = ConstellationRegistry.name(id).equalsIgnoreCase(query.getConstellation());
+                }
+            }
+        }
+
+        boolean matches(int row) {
+            ByteBuffer block = block(row);
+            int index = row & ROW_MASK;
+            if (block.get(FLAGS + index) != LIVE) {
+                return false;
+            }
+            for (int i = 0; i < columns.length; i++) {
+                double value = block.getDouble(columns[i] + index * 8);
+                if (value < min[i] || value > max[i]) {
+                    return false;
+                }
+            }
+            if (hemisphere >= 0 && block.get(HEMISPHERE + index) != hemisphere) {
+                return false;
+            }
+            if (constellations != null && !constellations[block.getShort(CONSTELLATION + index * 2)]) {
+                return false;
+            }
+            return !query.hasFilters() || query.matchesFilters(star.moveTo(row));
+        }
+    }
+
+    // column of a numeric attribute
+    private static int column(StarAttribute attribute) {
+        return switch (attribute) {
+            case APPARENT_MAGNITUDE -> APPARENT_MAGNITUDE;
+            case ABSOLUTE_MAGNITUDE -> ABSOLUTE_MAGNITUDE;
+            case DISTANCE -> DISTANCE;
+            case TEMPERATURE -> TEMPERATURE;
+            case MASS -> MASS;
+        };
+    }
+
+    // id of a constellation (an exact match first if names are case insensitive), -1 if it isn't known
+    private static int constellationId(String name, boolean ignoreCase) {
+        int id = ConstellationRegistry.find(name);
+        if (id >= 0 || !ignoreCase) {
+            return id;
+        }
+        for (int candidate = 0; candidate < ConstellationRegistry.size(); candidate++) {
+            if (ConstellationRegistry.name(candidate).equalsIgnoreCase(name)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    // NAME INDEX
+
+    // row of the star with given packed name, -1 if there's no such star
+    private int rowOf(int name) {
+        for (int slot = slot(name); ; slot = (slot + 1) & indexMask) {
+            int entry = nameIndex.getInt(slot * 4);
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (getInt(NAME, entry - 1) == name) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insert(int row) {
+        int slot = slot(getInt(NAME, row));
+        while (nameIndex.getInt(slot * 4) != EMPTY) {
+            slot = (slot + 1) & indexMask;
+        }
+        nameIndex.putInt(slot * 4, row + 1);
+    }
+
+    // removes the row from the index, names after it that can't be found from their slots anymore are moved back
+    private void delete(int row) {
+        int free = slot(getInt(NAME, row));
+        while (nameIndex.getInt(free * 4) != row + 1) {
+            free = (free + 1) & indexMask;
+        }
+        for (int next = (free + 1) & indexMask; ; next = (next + 1) & indexMask) {
+            int entry = nameIndex.getInt(next * 4);
+            if (entry == EMPTY) {
+                break;
+            }
+            int home = slot(getInt(NAME, entry - 1));
+            if (((next - home) & indexMask) >= ((next - free) & indexMask)) {
+                nameIndex.putInt(free * 4, entry);
+                free = next;
+            }
+        }
+        nameIndex.putInt(free * 4, EMPTY);
+    }
+
+    // new index with room for expectedSize stars (at most half of the slots are used)
+    private void resizeIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) << 1;
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / 4) {
+            throw new IllegalStateException("Off-heap catalog can't index " + expectedSize + " stars");
+        }
+        nameIndex = ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder());
+        indexMask = capacity - 1;
+        for (int row = 0; row < rows; row++) {
+            if (isLive(row)) {
+                insert(row);
+            }
+        }
+    }
+
+    private int slot(int name) {
+        int hash = name * 0x9E3779B9; // packed names are consecutive numbers, multiplying spreads them
+        return (hash ^ (hash >>> 16)) & indexMask;
+    }
+
+    // COLUMNS
+
+    private ByteBuffer block(int row) {
+        return blocks[row >>> BLOCK_SHIFT];
+    }
+
+    private boolean isLive(int row) {
+        return getByte(FLAGS, row) == LIVE;
+    }
+
+    private double getDouble(int column, int row) {
+        return block(row).getDouble(column + (row & ROW_MASK) * 8);
+    }
+
+    private int getInt(int column, int row) {
+        return block(row).getInt(column + (row & ROW_MASK) * 4);
+    }
+
+    private void setInt(int column, int row, int value) {
+        block(row).putInt(column + (row & ROW_MASK) * 4, value);
+    }
+
+    private short getShort(int column, int row) {
+        return block(row).getShort(column + (row & ROW_MASK) * 2);
+    }
+
+    private void setShort(int column, int row, short value) {
+        block(row).putShort(column + (row & ROW_MASK) * 2, value);
+    }
+
+    private byte getByte(int column, int row) {
+        return block(row).get(column + (row & ROW_MASK));
+    }
+
+    private void setByte(int column, int row, byte value) {
+        block(row).put(column + (row & ROW_MASK), value);
+    }
+
+    // flyweight view of one star (moved from row to row while scanning, so don't keep references to it)
+    private final class Row implements StarRecord {
+        private int row;
+
+        Row moveTo(int row) {
+            this.row = row;
+            return this;
+        }
+
+        @Override
+        public String getName() {
+            return Star.unpackName(getInt(NAME, row));
+        }
+
+        @Override
+        public String getCatalogName() {
+            return ConstellationRegistry.catalogName(getShort(CONSTELLATION, row), getGreekOrdinal());
+        }
+
+        @Override
+        public int getGreekOrdinal() {
+            return getByte(GREEK, row);
+        }
+
+        @Override
+        public Hemisphere getHemisphere() {
+            return HEMISPHERES[getByte(HEMISPHERE, row)];
+        }
+
+        @Override
+        public String getDeclination() {
+            return declination().toString();
+        }
+
+        @Override
+        public int getDeclinationDegrees() {
+            return getByte(DEC_DEGREES, row);
+        }
+
+        @Override
+        public int getDeclinationMinutes() {
+            return getByte(DEC_MINUTES, row);
+        }
+
+        @Override
+        public double getDeclinationSeconds() {
+            return getDouble(DEC_SECONDS, row);
+        }
+
+        @Override
+        public String getRightAscension() {
+            return rightAscension().toString();
+        }
+
+        @Override
+        public int getRightAscensionHours() {
+            return getByte(RA_HOURS, row);
+        }
+
+        @Override
+        public int getRightAscensionMinutes() {
+            return getByte(RA_MINUTES, row);
+        }
+
+        @Override
+        public double getRightAscensionSeconds() {
+            return getDouble(RA_SECONDS, row);
+        }
+
+        @Override
+        public String getConstellation() {
+            return ConstellationRegistry.name(getShort(CONSTELLATION, row));
+        }
+
+        @Override
+        public double getApparentMagnitude() {
+            return getDouble(APPARENT_MAGNITUDE, row);
+        }
+
+        @Override
+        public double getAbsoluteMagnitude() {
+            return getDouble(ABSOLUTE_MAGNITUDE, row);
+        }
+
+        @Override
+        public double getDistance() {
+            return getDouble(DISTANCE, row);
+        }
+
+        @Override
+        public double getTemperature() {
+            return getDouble(TEMPERATURE, row);
+        }
+
+        @Override
+        public double getMass() {
+            return getDouble(MASS, row);
+        }
+
+        // copy of the star on the heap
+        Star toStar() {
+            return Star.restore(getName(), getGreekOrdinal(), getHemisphere(), declination(), rightAscension(),
+                    ConstellationRegistry.get(getShort(CONSTELLATION, row)), getApparentMagnitude(), getAbsoluteMagnitude(),
+                    getDistance(), getTemperature(), getMass());
+        }
+
+        private Declination declination() {
+            return new Declination(getDeclinationDegrees(), getDeclinationMinutes(), getDeclinationSeconds());
+        }
+
+        private RightAscension rightAscension() {
+            return new RightAscension(getRightAscensionHours(), getRightAscensionMinutes(), getRightAscensionSeconds());
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package src.storage;
+
+import src.metrics.Metrics;
+import src.models.ConstellationRegistry;
+import src.models.Declination;
+import src.models.RightAscension;
+import src.models.Star;
+import src.utils.Hemisphere;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Single-file star catalog with fixed-width binary records (replaces one .obj file per star)
+/*
+    File layout:
+    - header (64 bytes): magic, version, record size, number of record slots, number of dictionary entries,
+      number of changes (lets a MappedCatalog of the same file know when its indexes are out of date)
+    - constellation dictionary (256 entries x 32 bytes): length byte + UTF-8 name
+    - records (72 bytes each), record i starts at DATA_OFFSET + i * RECORD_SIZE
+
+    Record layout:
+    0  flags (0 = free slot, 1 = star)     11 dec degrees     16 dec seconds (double)
+    1  name (7 ASCII bytes)                12 dec minutes     24 ra seconds (double)
+    8  greek letter ordinal                13 ra hours        32 apparent magnitude
+    9  constellation id (dictionary)       14 ra minutes      40 absolute magnitude
+    10 hemisphere id (ordinal)             15 unused          48 distance, 56 temperature, 64 mass
+
+    Removed stars leave a free slot that is reused by the next added star,
+    so every change is a single record write and the file never has to be rewritten.
+ */
+public class PackedCatalog implements Closeable {
+
+    static final int MAGIC = 0x53544152; // "STAR"
+    static final short VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+    static final int DICTIONARY_CAPACITY = 256;
+    static final int DICTIONARY_ENTRY_SIZE = 32;
+    // longest constellation name in UTF-8 bytes (an entry is the length byte and the name)
+    static final int MAX_CONSTELLATION_NAME = DICTIONARY_ENTRY_SIZE - 1;
+    static final int DATA_OFFSET = HEADER_SIZE + DICTIONARY_CAPACITY * DICTIONARY_ENTRY_SIZE;
+    public static final int RECORD_SIZE = 72;
+
+    // header offsets
+    static final int HEADER_SLOT_COUNT = 8;
+    static final int HEADER_DICTIONARY_SIZE = 12;
+    static final int HEADER_CHANGE_COUNT = 16;
+
+    // record offsets
+    static final int FLAGS = 0;
+    static final int NAME = 1;
+    static final int NAME_LENGTH = 7;
+    static final int GREEK = 8;
+    static final int CONSTELLATION = 9;
+    static final int HEMISPHERE = 10;
+    static final int DEC_DEGREES = 11;
+    static final int DEC_MINUTES = 12;
+    static final int RA_HOURS = 13;
+    static final int RA_MINUTES = 14;
+    static final int DEC_SECONDS = 16;
+    static final int RA_SECONDS = 24;
+    static final int APPARENT_MAGNITUDE = 32;
+    static final int ABSOLUTE_MAGNITUDE = 40;
+    static final int DISTANCE = 48;
+    static final int TEMPERATURE = 56;
+    static final int MASS = 64;
+
+    static final byte FREE = 0;
+    static final byte LIVE = 1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final Map<String, Integer> slotsByName = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int slotCount;
+    private long changeCount;
+
+    private PackedCatalog(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    // opens catalog file (creates an empty one if it doesn't exist)
+    public static PackedCatalog open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        PackedCatalog catalog = new PackedCatalog(file, channel);
+        try {
+            if (channel.size() == 0) {
+                catalog.writeHeader();
+            }
+            if (channel.size() < DATA_OFFSET) {
+                // the file always contains the whole dictionary (also when it's still empty), so it can be read/mapped at once
+                catalog.writeFully(ByteBuffer.allocate(1), DATA_OFFSET - 1);
+            }
+            catalog.readHeaderAndIndex();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return catalog;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // number of stars in the catalog
+    public int size() {
+        return slotsByName.size();
+    }
+
+    // number of record slots in the file (stars + free slots)
+    public int slotCount() {
+        return slotCount;
+    }
+
+    // constellation name stored under given dictionary id
+    public String constellationName(int id) {
+        return dictionary.get(id);
+    }
+
+    // method that reads all stars stored in the catalog
+    public List<Star> readAll() throws IOException {
+        return load().getStars();
+    }
+
+    // method that reads all stars with one read and decodes them in parallel (see CatalogLoader)
+    // broken records are skipped and reported in the result
+    public CatalogLoader.Result load() throws IOException {
+        ByteBuffer records = ByteBuffer.allocate(slotCount * RECORD_SIZE);
+        readFully(records, DATA_OFFSET);
+        records.flip();
+        Metrics.FILES_READ.increment();
+        Metrics.BYTES_READ.add(records.remaining());
+        return CatalogLoader.decode(this, records, slotCount);
+    }
+
+    // saves a star: updates its record in place if it's already in the catalog, otherwise adds a new record
+    public void put(Star star) throws IOException {
+        Integer slot = slotsByName.get(star.getName());
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? slotCount : freeSlots.poll();
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        encode(star, record, constellationId(star.getConstellation()));
+        record.flip();
+        writeFully(record, recordPosition(slot));
+        Metrics.RECORDS_WRITTEN.increment();
+        Metrics.BYTES_SERIALIZED.add(RECORD_SIZE);
+
+        if (slot == slotCount) {
+            slotCount++;
+        }
+        changeCount++;
+        writeHeader();
+        slotsByName.put(star.getName(), slot);
+    }
+
+    // removes a star from the catalog (its slot will be reused)
+    public boolean delete(String name) throws IOException {
+        Integer slot = slotsByName.remove(name);
+        if (slot == null) {
+            return false;
+        }
+        writeFully(ByteBuffer.wrap(new byte[] {FREE}), recordPosition(slot) + FLAGS);
+        Metrics.RECORDS_WRITTEN.increment();
+        freeSlots.add(slot);
+        changeCount++;
+        writeHeader();
+        return true;
+    }
+
+    // forces all changes to the storage device
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ENCODING/DECODING OF RECORDS
+
+    void encode(Star star, ByteBuffer buffer, int constellationId) {
+        int start = buffer.position();
+        buffer.put(start + FLAGS, LIVE);
+        byte[] name = star.getName().getBytes(StandardCharsets.US_ASCII);
+        if (name.length != NAME_LENGTH) {
+            throw new IllegalArgumentException("Star name must have " + NAME_LENGTH + " characters: " + star.getName());
+        }
+        buffer.put(start + NAME, name);
+        buffer.put(start + GREEK, (byte) star.getGreekOrdinal());
+        buffer.put(start + CONSTELLATION, (byte) constellationId);
+        buffer.put(start + HEMISPHERE, (byte) star.getHemisphere().ordinal());
+        buffer.put(start + DEC_DEGREES, (byte) star.getDeclinationDegrees());
+        buffer.put(start + DEC_MINUTES, (byte) star.getDeclinationMinutes());
+        buffer.put(start + RA_HOURS, (byte) star.getRightAscensionHours());
+        buffer.put(start + RA_MINUTES, (byte) star.getRightAscensionMinutes());
+        buffer.putDouble(start + DEC_SECONDS, star.getDeclinationSeconds());
+        buffer.putDouble(start + RA_SECONDS, star.getRightAscensionSeconds());
+        buffer.putDouble(start + APPARENT_MAGNITUDE, star.getApparentMagnitude());
+        buffer.putDouble(start + ABSOLUTE_MAGNITUDE, star.getAbsoluteMagnitude());
+        buffer.putDouble(start + DISTANCE, star.getDistance());
+        buffer.putDouble(start + TEMPERATURE, star.getTemperature());
+        buffer.putDouble(start + MASS, star.getMass());
+        buffer.position(start + RECORD_SIZE);
+    }
+
+    Star decode(ByteBuffer buffer, int offset) {
+        byte[] name = new byte[NAME_LENGTH];
+        buffer.get(offset + NAME, name);
+        String constellationName = dictionary.get(Byte.toUnsignedInt(buffer.get(offset + CONSTELLATION)));
+
+        return Star.restore(
+                new String(name, StandardCharsets.US_ASCII),
+                buffer.get(offset + GREEK),
+                Hemisphere.values()[buffer.get(offset + HEMISPHERE)],
+                new Declination(buffer.get(offset + DEC_DEGREES), buffer.get(offset + DEC_MINUTES), buffer.getDouble(offset + DEC_SECONDS)),
+                new RightAscension(buffer.get(offset + RA_HOURS), buffer.get(offset + RA_MINUTES), buffer.getDouble(offset + RA_SECONDS)),
+                ConstellationRegistry.intern(constellationName),
+                buffer.getDouble(offset + APPARENT_MAGNITUDE),
+                buffer.getDouble(offset + ABSOLUTE_MAGNITUDE),
+                buffer.getDouble(offset + DISTANCE),
+                buffer.getDouble(offset + TEMPERATURE),
+                buffer.getDouble(offset + MASS));
+    }
+
+    // dictionary id of a constellation (adds it to the dictionary if it's a new one)
+    int constellationId(String constellationName) throws IOException {
+        Integer id = dictionaryIds.get(constellationName);
+        if (id != null) {
+            return id;
+        }
+
+        byte[] bytes = constellationName.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_CONSTELLATION_NAME) {
+            throw new IllegalArgumentException("Constellation name is too long: " + constellationName);
+        }
+        if (dictionary.size() >= DICTIONARY_CAPACITY) {
+            throw new IllegalStateException("Limit of constellations in the catalog has been reached!");
+        }
+
+        id = dictionary.size();
+        ByteBuffer entry = ByteBuffer.allocate(DICTIONARY_ENTRY_SIZE);
+        entry.put((byte) bytes.length).put(bytes);
+        entry.clear();
+        writeFully(entry, HEADER_SIZE + (long) id * DICTIONARY_ENTRY_SIZE);
+
+        dictionary.add(constellationName);
+        dictionaryIds.put(constellationName, id);
+        writeHeader();
+        return id;
+    }
+
+    // HEADER
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.putShort(4, VERSION);
+        header.putShort(6, (short) RECORD_SIZE);
+        header.putInt(HEADER_SLOT_COUNT, slotCount);
+        header.putInt(HEADER_DICTIONARY_SIZE, dictionary.size());
+        header.putLong(HEADER_CHANGE_COUNT, changeCount);
+        writeFully(header, 0);
+    }
+
+    private void readHeaderAndIndex() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DATA_OFFSET);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+            throw new IOException("Not a star catalog file (or unsupported version): " + file);
+        }
+        slotCount = header.getInt(HEADER_SLOT_COUNT);
+        int dictionarySize = header.getInt(HEADER_DICTIONARY_SIZE);
+        changeCount = header.getLong(HEADER_CHANGE_COUNT);
+
+        for (int id = 0; id < dictionarySize; id++) {
+            int offset = HEADER_SIZE + id * DICTIONARY_ENTRY_SIZE;
+            byte[] bytes = new byte[Byte.toUnsignedInt(header.get(offset))];
+            header.get(offset + 1, bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            dictionary.add(name);
+            dictionaryIds.put(name, id);
+        }
+
+        // build name -> slot index and list of free slots
+        ByteBuffer records = ByteBuffer.allocate(slotCount * RECORD_SIZE);
+        readFully(records, DATA_OFFSET);
+        byte[] name = new byte[NAME_LENGTH];
+        for (int slot = 0; slot < slotCount; slot++) {
+            int offset = slot * RECORD_SIZE;
+            if (records.get(offset + FLAGS) == LIVE) {
+                records.get(offset + NAME, name);
+                slotsByName.put(new String(name, StandardCharsets.US_ASCII), slot);
+            } else {
+                freeSlots.add(slot);
+            }
+        }
+    }
+
+    // HELPERS
+
+    private static long recordPosition(int slot) {
+        return DATA_OFFSET + (long) slot * RECORD_SIZE;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of catalog file: " + file);
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package src.storage;
+
+import src.models.ConstellationRegistry;
+import src.models.Declination;
+import src.models.RightAscension;
+import src.models.Star;
+import src.utils.GreekAlphabet;
+import src.utils.Hemisphere;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Binary encoding of one star (used for entries of the write-ahead log) - replaces Java serialization
+/*
+    Layout (version 1, big endian):
+    version (byte), name (7 ASCII bytes), greek letter ordinal, hemisphere ordinal,
+    declination degrees, declination minutes, right ascension hours, right ascension minutes (1 byte each),
+    declination seconds, right ascension seconds, apparent magnitude, absolute magnitude,
+    distance, temperature, mass (doubles), constellation name length (short) + UTF-8 bytes
+
+    Every field is written and read explicitly: no reflection, no classes named by the data, so a
+    broken, truncated or crafted entry can only give an IllegalArgumentException. A new layout gets a new version
+    number and read() keeps decoding the older ones.
+ */
+public final class StarCodec {
+
+    public static final byte VERSION = 1;
+    private static final int NAME_LENGTH = 7;
+    // version, name, 6 single-byte fields, 7 doubles, constellation name length
+    private static final int FIXED_SIZE = 1 + NAME_LENGTH + 6 + 7 * 8 + 2;
+    // constellation names are limited like in the catalog file, so every logged star can be checkpointed
+    public static final int MAX_SIZE = FIXED_SIZE + PackedCatalog.MAX_CONSTELLATION_NAME;
+
+    private StarCodec() {
+    }
+
+    // writes a star at the position of the buffer (buffer must have MAX_SIZE bytes left)
+    public static void write(Star star, ByteBuffer buffer) {
+        byte[] name = star.getName().getBytes(StandardCharsets.US_ASCII);
+        byte[] constellation = star.getConstellation().getBytes(StandardCharsets.UTF_8);
+        if (name.length != NAME_LENGTH) {
+            throw new IllegalArgumentException("Star name must have " + NAME_LENGTH + " characters: " + star.getName());
+        }
+        if (constellation.length > PackedCatalog.MAX_CONSTELLATION_NAME) {
+            throw new IllegalArgumentException("Constellation name is too long: " + star.getConstellation());
+        }
+        buffer.put(VERSION);
+        buffer.put(name);
+        buffer.put((byte) star.getGreekOrdinal());
+        buffer.put((byte) star.getHemisphere().ordinal());
+        buffer.put((byte) star.getDeclinationDegrees());
+        buffer.put((byte) star.getDeclinationMinutes());
+        buffer.put((byte) star.getRightAscensionHours());
+        buffer.put((byte) star.getRightAscensionMinutes());
+        buffer.putDouble(star.getDeclinationSeconds());
+        buffer.putDouble(star.getRightAscensionSeconds());
+        buffer.putDouble(star.getApparentMagnitude());
+        buffer.putDouble(star.getAbsoluteMagnitude());
+        buffer.putDouble(star.getDistance());
+        buffer.putDouble(star.getTemperature());
+        buffer.putDouble(star.getMass());
+        buffer.putShort((short) constellation.length);
+        buffer.put(constellation);
+    }
+
+    // reads a star from the position of the buffer
+    public static Star read(ByteBuffer buffer) {
+        if (buffer.remaining() < FIXED_SIZE) {
+            throw new IllegalArgumentException("Broken star encoding: " + buffer.remaining() + " bytes");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown star encoding version: " + version);
+        }
+
+        byte[] name = new byte[NAME_LENGTH];
+        buffer.get(name);
+        int greekOrdinal = buffer.get();
+        int hemisphereOrdinal = buffer.get();
+        if (greekOrdinal < 0 || greekOrdinal >= GreekAlphabet.values().length
+                || hemisphereOrdinal < 0 || hemisphereOrdinal >= Hemisphere.values().length) {
+            throw new IllegalArgumentException("Broken star encoding: greek letter " + greekOrdinal
+                    + ", hemisphere " + hemisphereOrdinal);
+        }
+        int decDegrees = buffer.get();
+        int decMinutes = buffer.get();
+        int raHours = buffer.get();
+        int raMinutes = buffer.get();
+        Declination declination = new Declination(decDegrees, decMinutes, buffer.getDouble());
+        RightAscension rightAscension = new RightAscension(raHours, raMinutes, buffer.getDouble());
+        double apparentMagnitude = buffer.getDouble();
+        double absoluteMagnitude = buffer.getDouble();
+        double distance = buffer.getDouble();
+        double temperature = buffer.getDouble();
+        double mass = buffer.getDouble();
+        int constellationLength = buffer.getShort();
+        if (constellationLength <= 0 || constellationLength > PackedCatalog.MAX_CONSTELLATION_NAME
+                || constellationLength > buffer.remaining()) {
+            throw new IllegalArgumentException("Broken star encoding: constellation name of " + constellationLength + " bytes");
+        }
+        byte[] constellation = new byte[constellationLength];
+        buffer.get(constellation);
+        String constellationName = new String(constellation, StandardCharsets.UTF_8);
+
+        return Star.restore(new String(name, StandardCharsets.US_ASCII), greekOrdinal,
+                Hemisphere.values()[hemisphereOrdinal], declination, rightAscension,
+                ConstellationRegistry.intern(constellationName), apparentMagnitude, absoluteMagnitude, distance, temperature, mass);
+    }
+}
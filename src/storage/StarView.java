@@ -0,0 +1,142 @@
+package src.storage;
+
+import src.models.ConstellationRegistry;
+import src.models.Declination;
+import src.models.RightAscension;
+import src.models.Star;
+import src.models.StarRecord;
+import src.utils.GreekAlphabet;
+import src.utils.Hemisphere;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static src.storage.PackedCatalog.*;
+
+// Flyweight view of one record of the catalog file
+// getters read values straight from the (memory-mapped) buffer, nothing is copied to the heap.
+// the same view is moved from record to record while scanning, so don't keep references to it -
+// use toStar() to get a copy of the star.
+public final class StarView implements StarRecord {
+
+    private final MappedCatalog catalog;
+    private ByteBuffer buffer;
+    private int offset;
+
+    StarView(MappedCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    // points the view at a record starting at given offset of the buffer
+    void moveTo(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    @Override
+    public String getName() {
+        byte[] name = new byte[NAME_LENGTH];
+        buffer.get(offset + NAME, name);
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String getCatalogName() {
+        return GreekAlphabet.values()[getGreekOrdinal()].name() + " " + getConstellation();
+    }
+
+    @Override
+    public int getGreekOrdinal() {
+        return buffer.get(offset + GREEK);
+    }
+
+    @Override
+    public Hemisphere getHemisphere() {
+        return Hemisphere.values()[buffer.get(offset + HEMISPHERE)];
+    }
+
+    @Override
+    public String getDeclination() {
+        return declination().toString();
+    }
+
+    @Override
+    public String getRightAscension() {
+        return rightAscension().toString();
+    }
+
+    @Override
+    public int getDeclinationDegrees() {
+        return buffer.get(offset + DEC_DEGREES);
+    }
+
+    @Override
+    public int getDeclinationMinutes() {
+        return buffer.get(offset + DEC_MINUTES);
+    }
+
+    @Override
+    public double getDeclinationSeconds() {
+        return buffer.getDouble(offset + DEC_SECONDS);
+    }
+
+    @Override
+    public int getRightAscensionHours() {
+        return buffer.get(offset + RA_HOURS);
+    }
+
+    @Override
+    public int getRightAscensionMinutes() {
+        return buffer.get(offset + RA_MINUTES);
+    }
+
+    @Override
+    public double getRightAscensionSeconds() {
+        return buffer.getDouble(offset + RA_SECONDS);
+    }
+
+    @Override
+    public String getConstellation() {
+        return catalog.constellationName(Byte.toUnsignedInt(buffer.get(offset + CONSTELLATION)));
+    }
+
+    @Override
+    public double getApparentMagnitude() {
+        return buffer.getDouble(offset + APPARENT_MAGNITUDE);
+    }
+
+    @Override
+    public double getAbsoluteMagnitude() {
+        return buffer.getDouble(offset + ABSOLUTE_MAGNITUDE);
+    }
+
+    @Override
+    public double getDistance() {
+        return buffer.getDouble(offset + DISTANCE);
+    }
+
+    @Override
+    public double getTemperature() {
+        return buffer.getDouble(offset + TEMPERATURE);
+    }
+
+    @Override
+    public double getMass() {
+        return buffer.getDouble(offset + MASS);
+    }
+
+    // copy of the star the view currently points at
+    public Star toStar() {
+        return Star.restore(getName(), getGreekOrdinal(), getHemisphere(), declination(), rightAscension(),
+                ConstellationRegistry.intern(getConstellation()), getApparentMagnitude(), getAbsoluteMagnitude(),
+                getDistance(), getTemperature(), getMass());
+    }
+
+    private Declination declination() {
+        return new Declination(getDeclinationDegrees(), getDeclinationMinutes(), getDeclinationSeconds());
+    }
+
+    private RightAscension rightAscension() {
+        return new RightAscension(getRightAscensionHours(), getRightAscensionMinutes(), getRightAscensionSeconds());
+    }
+}
@@ -0,0 +1,214 @@
+package src.storage;
+
+import src.metrics.Metrics;
+import src.models.Star;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only log of catalog changes (star saved / star deleted)
+/*
+    Entry layout: payload length (int), CRC32 of payload (int), payload
+    Payload: operation (PUT or DELETE) + star encoded by StarCodec (PUT) or star name (DELETE)
+
+    Entries are written in batches with one fsync per batch (see CatalogStore).
+    When the program crashes, entries that reached the disk are replayed into the catalog file
+    on the next start. A batch that was only partly written ends with a broken entry
+    (too short or wrong CRC) - reading stops there.
+    Batches are written at the end of the last complete batch, not at the end of the file: when an append
+    fails, the partly written batch is cut off, so later batches don't end up behind a broken entry
+    (which would make them unreadable). If it can't be cut off, the log refuses appends until it's opened again.
+ */
+public class WriteAheadLog implements Closeable {
+
+    public static final byte PUT = 1;
+    public static final byte DELETE = 2;
+
+    private static final int ENTRY_HEADER_SIZE = 8;
+
+    private final Path file;
+    private final FileChannel channel;
+    // end of the last complete batch (where the next batch is written)
+    private long end;
+    // set when a failed append couldn't be cut off
+    private IOException failure;
+
+    private WriteAheadLog(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.end = channel.size();
+    }
+
+    // opens log file (creates an empty one if it doesn't exist)
+    public static WriteAheadLog open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        return new WriteAheadLog(file, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // size of the log in bytes
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    // one change of the catalog
+    public static final class Entry {
+        private final byte operation;
+        private final Star star;
+        private final String name;
+
+        private Entry(byte operation, Star star, String name) {
+            this.operation = operation;
+            this.star = star;
+            this.name = name;
+        }
+
+        public static Entry put(Star star) {
+            return new Entry(PUT, star, star.getName());
+        }
+
+        public static Entry delete(String name) {
+            return new Entry(DELETE, null, name);
+        }
+
+        public byte getOperation() {
+            return operation;
+        }
+
+        // saved star (only for PUT)
+        public Star getStar() {
+            return star;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    // method that adds encoded entry to a batch buffer (buffer must have enough space, see maxEntrySize)
+    public static void encode(Entry entry, ByteBuffer batch) {
+        int start = batch.position();
+        batch.position(start + ENTRY_HEADER_SIZE);
+        batch.put(entry.operation);
+        if (entry.operation == PUT) {
+            StarCodec.write(entry.star, batch);
+        } else {
+            batch.put(entry.name.getBytes(StandardCharsets.US_ASCII));
+        }
+        int end = batch.position();
+
+        CRC32 crc = new CRC32();
+        crc.update(batch.duplicate().position(start + ENTRY_HEADER_SIZE).limit(end));
+        batch.putInt(start, end - start - ENTRY_HEADER_SIZE);
+        batch.putInt(start + 4, (int) crc.getValue());
+        Metrics.BYTES_SERIALIZED.add(end - start);
+    }
+
+    // biggest possible size of an encoded entry
+    public static int maxEntrySize() {
+        // operation + star (a DELETE entry with a name is shorter)
+        return ENTRY_HEADER_SIZE + 1 + StarCodec.MAX_SIZE;
+    }
+
+    // method that appends a batch of entries and forces it to the storage device (one fsync for the whole batch)
+    // (when it fails, the log is cut back to the end of the last complete batch)
+    public void append(ByteBuffer batch) throws IOException {
+        if (failure != null) {
+            throw new IOException("Log has a broken batch at its end, it has to be opened again: " + file, failure);
+        }
+        long position = end;
+        try {
+            while (batch.hasRemaining()) {
+                position += channel.write(batch, position);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            try {
+                channel.truncate(end);
+                channel.force(false);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                failure = e;
+            }
+            throw e;
+        }
+        end = position;
+        Metrics.LOG_SYNCS.increment();
+    }
+
+    // method that reads all complete entries (used for recovery after a crash),
+    // throws IOException when a complete entry can't be decoded
+    public List<Entry> readEntries() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        ByteBuffer log = ByteBuffer.allocate((int) channel.size());
+        while (log.hasRemaining()) {
+            if (channel.read(log, log.position()) < 0) {
+                break;
+            }
+        }
+        log.flip();
+        Metrics.FILES_READ.increment();
+        Metrics.BYTES_READ.add(log.remaining());
+
+        while (log.remaining() >= ENTRY_HEADER_SIZE) {
+            int length = log.getInt();
+            int expectedCrc = log.getInt();
+            if (length <= 0 || length > log.remaining()) {
+                break; // last batch wasn't written completely
+            }
+            ByteBuffer payload = log.slice(log.position(), length);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            int offset = log.position() - ENTRY_HEADER_SIZE;
+            log.position(log.position() + length);
+
+            // a complete entry that can't be decoded (e.g. written by a newer version) isn't skipped:
+            // the log would be emptied after recovery and the entries after it would be lost
+            byte operation = payload.get();
+            if (operation == PUT) {
+                try {
+                    entries.add(Entry.put(StarCodec.read(payload)));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Can't read entry at offset " + offset + " of " + file + ": " + e.getMessage(), e);
+                }
+            } else if (operation == DELETE) {
+                byte[] name = new byte[payload.remaining()];
+                payload.get(name);
+                entries.add(Entry.delete(new String(name, StandardCharsets.US_ASCII)));
+            } else {
+                throw new IOException("Unknown operation " + operation + " of entry at offset " + offset + " of " + file);
+            }
+        }
+        return entries;
+    }
+
+    // removes all entries (after they were checkpointed into the catalog file)
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+        end = 0;
+        failure = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}